@@ -0,0 +1,38 @@
+package com.pv.trip_planner.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings of the JSON API, chosen by the client through {@code Accept}:
+ * {@code application/cbor} or {@code application/x-jackson-smile}. JSON stays the default.
+ *
+ * The converters are built from Boot's ObjectMapper builder so they apply the same
+ * {@code spring.jackson.*} settings as JSON (dates as ISO strings, not arrays) and the
+ * documents have the same shape in every format. They replace the converters Spring MVC
+ * would otherwise register with a plain mapper, at the same position after JSON.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        // Back-references to repeated short strings: the dashboard lists the same items and
+        // activities several times, and titles, locations and roles repeat across trips
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(factory).build());
+    }
+}
@@ -5,6 +5,7 @@ import com.pv.trip_planner.entities.User;
 import com.pv.trip_planner.repositories.RoleRepository;
 import com.pv.trip_planner.repositories.UserRepository;
 import com.pv.trip_planner.security.JwtTokenUtil;
+import com.pv.trip_planner.security.PasswordHashingExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -18,6 +19,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -39,8 +41,23 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    // login and register run BCrypt, so they execute on the bounded hashing pool and
+    // release the servlet thread; a saturated pool answers 429 (see ErrorHandler)
+
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest) {
+        return passwordHashingExecutor.submit(() -> authenticate(loginRequest));
+    }
+
+    @PostMapping("/register")
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest registerRequest) {
+        return passwordHashingExecutor.submit(() -> registerUser(registerRequest));
+    }
+
+    private ResponseEntity<?> authenticate(LoginRequest loginRequest) {
         try {
             Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
@@ -62,8 +79,7 @@ public class AuthController {
         }
     }
 
-    @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest) {
+    private ResponseEntity<?> registerUser(RegisterRequest registerRequest) {
         if (userRepository.existsByUsername(registerRequest.getUsername())) {
             return ResponseEntity.badRequest().body("Username already exists");
         }
@@ -0,0 +1,81 @@
+package com.pv.trip_planner.controllers;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pv.trip_planner.dto.BudgetItemDto;
+import com.pv.trip_planner.dto.BudgetItemRequest;
+import com.pv.trip_planner.dto.BudgetSummaryDto;
+import com.pv.trip_planner.dto.ExchangeRatesDto;
+import com.pv.trip_planner.dto.MonthlySpendDto;
+import com.pv.trip_planner.services.BudgetService;
+
+@RestController
+@CrossOrigin
+@RequestMapping("/api")
+public class BudgetController {
+
+    @Autowired
+    private BudgetService budgetService;
+
+    @GetMapping("/trips/{tripId}/budget/items")
+    public List<BudgetItemDto> getBudgetItems(@PathVariable Long tripId) {
+        return budgetService.getItems(tripId);
+    }
+
+    @PostMapping("/trips/{tripId}/budget/items")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BudgetItemDto addBudgetItem(@PathVariable Long tripId, @RequestBody BudgetItemRequest request) {
+        return budgetService.addItem(tripId, request);
+    }
+
+    // only non-null fields are applied
+    @PatchMapping("/trips/{tripId}/budget/items/{itemId}")
+    public BudgetItemDto updateBudgetItem(@PathVariable Long tripId, @PathVariable Long itemId,
+                                          @RequestBody BudgetItemRequest request) {
+        return budgetService.updateItem(tripId, itemId, request);
+    }
+
+    @DeleteMapping("/trips/{tripId}/budget/items/{itemId}")
+    public void deleteBudgetItem(@PathVariable Long tripId, @PathVariable Long itemId) {
+        budgetService.deleteItem(tripId, itemId);
+    }
+
+    // trip total and per-category totals, in currency (default: the configured default currency)
+    @GetMapping("/trips/{tripId}/budget/summary")
+    public BudgetSummaryDto getBudgetSummary(@PathVariable Long tripId,
+                                             @RequestParam(required = false) String currency) {
+        return budgetService.getSummary(tripId, currency);
+    }
+
+    // spend per user per month across trips; from/to as yyyy-MM
+    @GetMapping("/budget/monthly-spend")
+    public List<MonthlySpendDto> getMonthlySpend(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @RequestParam(required = false) String currency) {
+        return budgetService.getMonthlySpend(userId, from, to, currency);
+    }
+
+    // the exchange-rate table conversions currently use
+    @GetMapping("/budget/rates")
+    public ExchangeRatesDto getExchangeRates() {
+        return budgetService.getRates();
+    }
+}
@@ -0,0 +1,31 @@
+package com.pv.trip_planner.controllers;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pv.trip_planner.services.CalendarService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Calendar apps poll subscribe URLs without logging in; the signed token in the path stands in for a JWT
+@RestController
+@CrossOrigin
+@RequestMapping("/api/public/calendar")
+public class CalendarController {
+
+    @Autowired
+    private CalendarService calendarService;
+
+    @GetMapping("/{token}.ics")
+    public void getFeed(@PathVariable String token, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        calendarService.writeFeed(token, request, response);
+    }
+}
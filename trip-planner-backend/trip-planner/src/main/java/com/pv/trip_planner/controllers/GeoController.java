@@ -0,0 +1,45 @@
+package com.pv.trip_planner.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pv.trip_planner.dto.NearbyResultDto;
+import com.pv.trip_planner.dto.WithinResultDto;
+import com.pv.trip_planner.services.GeoService;
+
+@RestController
+@CrossOrigin
+@RequestMapping("/api/geo")
+public class GeoController {
+
+    @Autowired
+    private GeoService geoService;
+
+    // destinations, itinerary items and activities within radiusKm of lat/lon or of a place name, nearest first
+    @GetMapping("/nearby")
+    public NearbyResultDto nearby(@RequestParam(name = "lat", required = false) Double latitude,
+                                  @RequestParam(name = "lon", required = false) Double longitude,
+                                  @RequestParam(required = false) String near,
+                                  @RequestParam(required = false) Double radiusKm,
+                                  @RequestParam(required = false) String type,
+                                  @RequestParam(required = false) Long tripId,
+                                  @RequestParam(required = false) Integer limit) {
+        return geoService.nearby(latitude, longitude, near, radiusKm, type, tripId, limit);
+    }
+
+    // points inside a box such as a map viewport, with a count per trip
+    @GetMapping("/within")
+    public WithinResultDto within(@RequestParam(name = "minLat", required = false) Double minLatitude,
+                                  @RequestParam(name = "minLon", required = false) Double minLongitude,
+                                  @RequestParam(name = "maxLat", required = false) Double maxLatitude,
+                                  @RequestParam(name = "maxLon", required = false) Double maxLongitude,
+                                  @RequestParam(required = false) String type,
+                                  @RequestParam(required = false) Long tripId,
+                                  @RequestParam(required = false) Integer limit) {
+        return geoService.within(minLatitude, minLongitude, maxLatitude, maxLongitude, type, tripId, limit);
+    }
+}
@@ -7,12 +7,14 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.List;
 
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
+import com.pv.trip_planner.dto.ActivityResponseDto;
 import com.pv.trip_planner.entities.Activity;
 import com.pv.trip_planner.entities.ItineraryItem;
 import com.pv.trip_planner.services.ItineraryService;
@@ -43,18 +45,21 @@ public class ItineraryController {
 
     // add activity to itinerary item
     @PostMapping("/{id}/activities")
-    public void addActivityToItineraryItem(@PathVariable Long id, @RequestBody Activity activity) {
-        itineraryService.addActivityToItineraryItem(id, activity);
+    public ActivityResponseDto addActivityToItineraryItem(@PathVariable Long id, @RequestBody Activity activity) {
+        return itineraryService.addActivityToItineraryItem(id, activity);
     }
 
+    // pass the version from the last read to reject the delete if the activity changed since
     @DeleteMapping("/{id}/activities/{activityId}")
-    public void deleteActivityFromItineraryItem(@PathVariable Long id, @PathVariable Long activityId) {
-        itineraryService.deleteActivityFromItineraryItem(id, activityId);
+    public void deleteActivityFromItineraryItem(@PathVariable Long id, @PathVariable Long activityId,
+                                                @RequestParam(required = false) Long version) {
+        itineraryService.deleteActivityFromItineraryItem(id, activityId, version);
     }
 
+    // only non-null fields are applied; include "version" to guard against concurrent edits
     @PatchMapping("/{id}/activities/{activityId}")
-    public void updateActivityInItineraryItem(@PathVariable Long id, @PathVariable Long activityId, @RequestBody Activity activity) {
-        itineraryService.updateActivityInItineraryItem(id, activityId, activity);
+    public ActivityResponseDto updateActivityInItineraryItem(@PathVariable Long id, @PathVariable Long activityId, @RequestBody Activity activity) {
+        return itineraryService.updateActivityInItineraryItem(id, activityId, activity);
     }
 
     // delete itinerary item
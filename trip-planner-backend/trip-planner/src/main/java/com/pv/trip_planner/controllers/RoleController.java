@@ -4,6 +4,7 @@ import com.pv.trip_planner.entities.Role;
 import com.pv.trip_planner.entities.User;
 import com.pv.trip_planner.repositories.RoleRepository;
 import com.pv.trip_planner.repositories.UserRepository;
+import com.pv.trip_planner.security.UserPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,6 +25,9 @@ public class RoleController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     @GetMapping
     public ResponseEntity<List<Role>> getAllRoles() {
         List<Role> roles = roleRepository.findAll();
@@ -61,6 +65,8 @@ public class RoleController {
         existingRole.setDescription(role.getDescription());
         
         Role updatedRole = roleRepository.save(existingRole);
+        // Cached principals may carry the old role name
+        userPrincipalCache.evictAll();
         return ResponseEntity.ok(updatedRole);
     }
 
@@ -81,6 +87,7 @@ public class RoleController {
         }
         
         roleRepository.delete(role);
+        userPrincipalCache.evictAll();
         return ResponseEntity.ok().build();
     }
 
@@ -98,6 +105,7 @@ public class RoleController {
         user.setRoles(userRoles);
         
         userRepository.save(user);
+        userPrincipalCache.evictUser(userId);
         return ResponseEntity.ok("Role assigned successfully");
     }
 
@@ -115,6 +123,7 @@ public class RoleController {
         user.setRoles(userRoles);
         
         userRepository.save(user);
+        userPrincipalCache.evictUser(userId);
         return ResponseEntity.ok("Role removed successfully");
     }
 }
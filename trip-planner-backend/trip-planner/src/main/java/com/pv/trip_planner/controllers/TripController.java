@@ -2,9 +2,11 @@ package com.pv.trip_planner.controllers;
 
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -15,52 +17,210 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.pv.trip_planner.dto.ActivityResponseDto;
+import com.pv.trip_planner.dto.BulkImportResultDto;
+import com.pv.trip_planner.dto.CalendarSubscriptionDto;
 import com.pv.trip_planner.dto.ItineraryItemResponseDto;
+import com.pv.trip_planner.dto.RouteDto;
+import com.pv.trip_planner.dto.ScheduleConflictsDto;
+import com.pv.trip_planner.dto.TripChangesDto;
+import com.pv.trip_planner.dto.TripInclude;
+import com.pv.trip_planner.dto.TripPageDto;
+import com.pv.trip_planner.dto.TripPageRequest;
 import com.pv.trip_planner.dto.TripResponseDto;
+import com.pv.trip_planner.dto.TripSearchResultDto;
 import com.pv.trip_planner.dto.UserDashboardDto;
 import com.pv.trip_planner.entities.ItineraryItem;
 import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.services.CalendarService;
+import com.pv.trip_planner.services.ChangeFeedService;
+import com.pv.trip_planner.services.FileStorageService;
+import com.pv.trip_planner.services.ImageServingService;
+import com.pv.trip_planner.services.ImageVariantService;
+import com.pv.trip_planner.services.RouteService;
+import com.pv.trip_planner.services.ScheduleService;
+import com.pv.trip_planner.services.TripSearchService;
 import com.pv.trip_planner.services.TripService;
 
 import java.io.IOException;
-import java.time.LocalDate;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Set;
 
 @RestController
 @CrossOrigin
 @RequestMapping("/api/trips")
 public class TripController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Trips change under the same URL: caches may keep a copy but must revalidate it,
+    // and keep JSON and binary (CBOR/Smile) representations apart
+    private static final String TRIP_CACHE_CONTROL = "no-cache";
+    private static final String TRIP_DETAILS_CACHE_CONTROL = "private, no-cache";
+
     @Autowired
     TripService tripService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ImageServingService imageServingService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private TripSearchService tripSearchService;
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private ScheduleService scheduleService;
+
+    @Autowired
+    private CalendarService calendarService;
+
     
     @GetMapping
-    public List<Trip> getAllTrips() {
-        return tripService.getAllTrips();
+    public ResponseEntity<List<TripResponseDto>> getAllTrips(TripPageRequest pageRequest) {
+        return toPageResponse(tripService.getTripPage(pageRequest));
     }
 
     @GetMapping("/my-trips")
-    public List<TripResponseDto> getMyTrips() {
-        return tripService.getAllTripsForCurrentUser();
+    public ResponseEntity<List<TripResponseDto>> getMyTrips(TripPageRequest pageRequest) {
+        return toPageResponse(tripService.getTripPageForCurrentUser(pageRequest));
+    }
+
+    // The body stays a plain array; the cursor for the next page travels in a header
+    private ResponseEntity<List<TripResponseDto>> toPageResponse(TripPageDto page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        return response.body(page.getTrips());
     }
 
+    // Admin export of every trip, written element by element as NDJSON (default) or a JSON array
+    @GetMapping("/export")
+    public void exportTrips(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        boolean jsonArray = "json".equalsIgnoreCase(format);
+        response.setContentType(jsonArray ? MediaType.APPLICATION_JSON_VALUE : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        try (SequenceWriter sequenceWriter = jsonArray
+                ? writer.writeValuesAsArray(response.getOutputStream())
+                : writer.writeValues(response.getOutputStream())) {
+            tripService.exportAllTrips(trip -> {
+                try {
+                    sequenceWriter.write(trip);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // changes to the user's trips since a token from a previous call (omit it to get the current token)
+    @GetMapping("/changes")
+    public TripChangesDto getChanges(@RequestParam(required = false) Long since) {
+        return changeFeedService.getChangesForCurrentUser(since);
+    }
+
+    // full-text search over the user's trips; every word of q must match a word or word prefix
+    @GetMapping("/search")
+    public TripSearchResultDto searchTrips(
+            @RequestParam String q,
+            @RequestParam(required = false) String destination,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        return tripSearchService.search(q, destination, from, to, limit);
+    }
+
+    // overlapping activities and double-booked dates across the user's trips
+    @GetMapping("/conflicts")
+    public ScheduleConflictsDto getScheduleConflicts() {
+        return scheduleService.getConflictsForCurrentUser();
+    }
+
+    // itineraries of all the user's trips as an iCalendar download; 304 while none of them changed
+    @GetMapping("/calendar.ics")
+    public void getUserCalendar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        calendarService.writeUserCalendar(request, response);
+    }
+
+    // subscribe URL for the calendar of all the user's trips
+    @GetMapping("/calendar/subscription")
+    public CalendarSubscriptionDto getUserCalendarSubscription() {
+        return calendarService.getUserSubscription();
+    }
+
+    @GetMapping("/{tripId}/calendar.ics")
+    public void getTripCalendar(@PathVariable Long tripId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        calendarService.writeTripCalendar(tripId, request, response);
+    }
+
+    @GetMapping("/{tripId}/calendar/subscription")
+    public CalendarSubscriptionDto getTripCalendarSubscription(@PathVariable Long tripId) {
+        return calendarService.getTripSubscription(tripId);
+    }
+
+    // proposed visiting order for each day's activities (stops=activities) or the trip's destinations
+    @GetMapping("/{tripId}/route")
+    public RouteDto getTripRoute(@PathVariable Long tripId, @RequestParam(required = false) String stops) {
+        return routeService.proposeRoute(tripId, stops);
+    }
+
+    // Both trip reads answer If-None-Match with a 304 from the trip version alone;
+    // a null return after checkNotModified tells Spring the response is complete
     @GetMapping("/{tripId}")
-    public Trip getTripById(@PathVariable Long tripId) {
+    public Trip getTripById(@PathVariable Long tripId, HttpServletRequest request, HttpServletResponse response) {
+        String etag = tripService.getTripETag(tripId);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, TRIP_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (etag != null && new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return null;
+        }
         return tripService.getTripById(tripId);
     }
 
     @GetMapping("/{tripId}/details")
-    public TripResponseDto getTripDetailsById(@PathVariable Long tripId) {
-        return tripService.getTripByIdForCurrentUser(tripId);
+    public TripResponseDto getTripDetailsById(@PathVariable Long tripId,
+                                              @RequestParam(required = false) String include,
+                                              HttpServletRequest request, HttpServletResponse response) {
+        Set<TripInclude> parts = TripInclude.parse(include);
+        String etag = tripService.getTripETagForCurrentUser(tripId);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, TRIP_DETAILS_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (etag != null && new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return null;
+        }
+        return tripService.getTripByIdForCurrentUser(tripId, parts);
     }
 
     @GetMapping("/activities")
@@ -100,21 +260,28 @@ public class TripController {
     }
 
     @GetMapping("/images/{filename:.+}")
-    public ResponseEntity<Resource> serveImage(@PathVariable String filename) {
-        try {
-            Path imagePath = Paths.get("./uploads/trips").resolve(filename);
-            Resource resource = new UrlResource(imagePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_JPEG) // Default to JPEG, you can make this dynamic
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
+    public void serveImage(@PathVariable String filename, @RequestParam(required = false) String size,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariantService.Variant variant = ImageVariantService.Variant.fromParam(size);
+        if (variant != null) {
+            Path variantFile = fileStorageService.resolveVariant(filename, variant.paramName());
+            if (variantFile != null && Files.isRegularFile(variantFile)) {
+                imageServingService.serve(variantFile, request, response);
+                return;
             }
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
+            // Variant not generated (yet): serve the original, but don't let it be cached as the variant
+            imageServingService.serve(fileStorageService.resolveFile(filename),
+                    ImageServingService.SHORT_CACHE_CONTROL, request, response);
+            return;
         }
+        imageServingService.serve(fileStorageService.resolveFile(filename), request, response);
+    }
+
+    // import a whole itinerary (items with nested activities) in batched inserts
+    @PostMapping("/{tripId}/itinerary/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public BulkImportResultDto importItinerary(@PathVariable Long tripId, @RequestBody List<ItineraryItem> itineraryItems) {
+        return tripService.importItinerary(tripId, itineraryItems);
     }
 
     // add itinerary item to trip
@@ -0,0 +1,73 @@
+package com.pv.trip_planner.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pv.trip_planner.dto.CreateUploadRequest;
+import com.pv.trip_planner.dto.UploadSessionDto;
+import com.pv.trip_planner.services.UploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+
+/**
+ * Resumable chunked uploads. Create a session, PUT raw chunks at the current offset with an
+ * X-Chunk-SHA256 header, GET the session to find where to resume, then complete it.
+ */
+@RestController
+@CrossOrigin
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    public static final String CHUNK_CHECKSUM_HEADER = "X-Chunk-SHA256";
+    public static final String CONTENT_CHECKSUM_HEADER = "X-Content-SHA256";
+
+    @Autowired
+    private UploadService uploadService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public UploadSessionDto createUpload(@RequestBody CreateUploadRequest request) throws IOException {
+        return uploadService.createSession(request);
+    }
+
+    @GetMapping("/{uploadId}")
+    public UploadSessionDto getUpload(@PathVariable String uploadId) {
+        return uploadService.getSession(uploadId);
+    }
+
+    // The body is read straight from the request stream; no multipart parsing or buffering
+    @PutMapping("/{uploadId}")
+    public UploadSessionDto appendChunk(@PathVariable String uploadId, @RequestParam long offset,
+                                        @RequestHeader(CHUNK_CHECKSUM_HEADER) String chunkSha256,
+                                        HttpServletRequest request) throws IOException {
+        return uploadService.appendChunk(uploadId, offset, chunkSha256, request.getInputStream());
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public UploadSessionDto completeUpload(@PathVariable String uploadId,
+                                           @RequestParam(required = false) Long tripId,
+                                           @RequestHeader(value = CONTENT_CHECKSUM_HEADER, required = false) String sha256)
+            throws IOException {
+        return uploadService.complete(uploadId, sha256, tripId);
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelUpload(@PathVariable String uploadId) throws IOException {
+        uploadService.cancel(uploadId);
+    }
+}
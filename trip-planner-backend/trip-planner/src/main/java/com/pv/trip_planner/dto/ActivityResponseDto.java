@@ -1,5 +1,6 @@
 package com.pv.trip_planner.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.pv.trip_planner.entities.Activity;
 import lombok.Data;
 import lombok.Builder;
@@ -7,6 +8,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -17,8 +19,14 @@ public class ActivityResponseDto {
     private String title;
     private String description;
     private String location;
+    private Double latitude;
+    private Double longitude;
     private LocalTime startTime;
     private LocalTime endTime;
+    private Long version;
+    // only on add/update responses: activities this one now overlaps
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ScheduleConflictDto> conflicts;
 
     public static ActivityResponseDto fromActivity(Activity activity) {
         return ActivityResponseDto.builder()
@@ -26,8 +34,11 @@ public class ActivityResponseDto {
                 .title(activity.getTitle())
                 .description(activity.getDescription())
                 .location(activity.getLocation())
+                .latitude(activity.getLatitude())
+                .longitude(activity.getLongitude())
                 .startTime(activity.getStartTime())
                 .endTime(activity.getEndTime())
+                .version(activity.getVersion())
                 .build();
     }
 }
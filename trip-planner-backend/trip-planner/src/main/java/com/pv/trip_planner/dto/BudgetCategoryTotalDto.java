@@ -0,0 +1,18 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetCategoryTotalDto {
+    private String category;
+    private BigDecimal total;
+    private long itemCount;
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Data
 @Builder
@@ -16,14 +17,21 @@ public class BudgetItemDto {
     private Long id;
     private String description;
     private BigDecimal amount;
+    private String currency;
     private String category;
+    private LocalDate spentOn;
+    private Long paidByUserId;
 
     public static BudgetItemDto fromBudgetItem(BudgetItem item) {
         return BudgetItemDto.builder()
                 .id(item.getId())
                 .description(item.getDescription())
                 .amount(item.getAmount())
+                .currency(item.getCurrency())
                 .category(item.getCategory())
+                .spentOn(item.getSpentOn())
+                // The id of a lazy proxy is known without loading the user
+                .paidByUserId(item.getPaidBy() != null ? item.getPaidBy().getId() : null)
                 .build();
     }
 }
@@ -0,0 +1,23 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Body for creating or patching a budget item. On create, amount is required, currency
+ * defaults to the configured default currency, spentOn to today and paidByUserId to the
+ * current user; on patch only non-null fields apply.
+ */
+@Data
+public class BudgetItemRequest {
+    private String description;
+    private BigDecimal amount;
+    // ISO 4217 code with an exchange rate, e.g. "EUR"
+    private String currency;
+    private String category;
+    private LocalDate spentOn;
+    // Must be the trip's owner or a collaborator
+    private Long paidByUserId;
+}
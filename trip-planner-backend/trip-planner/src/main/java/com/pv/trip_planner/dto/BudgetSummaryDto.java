@@ -0,0 +1,28 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Trip totals converted into {@code currency} with the rates as of {@code ratesAsOf}.
+ * totalsByCurrency lists the unconverted amounts per currency the items were recorded in.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetSummaryDto {
+    private Long tripId;
+    private String currency;
+    private LocalDate ratesAsOf;
+    private BigDecimal total;
+    private long itemCount;
+    private List<BudgetCategoryTotalDto> categories;
+    private List<CurrencyTotalDto> totalsByCurrency;
+}
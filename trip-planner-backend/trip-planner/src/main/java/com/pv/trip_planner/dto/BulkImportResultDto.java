@@ -0,0 +1,17 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResultDto {
+    private int itineraryItemsCreated;
+    private int activitiesCreated;
+    // JDBC round trips used by the import (each batch execution counts once)
+    private long jdbcStatements;
+}
@@ -0,0 +1,21 @@
+package com.pv.trip_planner.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarSubscriptionDto {
+    // absent for the feed of all the user's trips
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long tripId;
+    // the feed itself; anyone with the URL can read it, so it is shared like a password
+    private String url;
+    // same feed with the webcal: scheme, which opens the subscribe dialog of most calendar apps
+    private String webcalUrl;
+}
@@ -0,0 +1,10 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+
+@Data
+public class CreateUploadRequest {
+    private String filename;
+    private String contentType;
+    private Long totalSize;
+}
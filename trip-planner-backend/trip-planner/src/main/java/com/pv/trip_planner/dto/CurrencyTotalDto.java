@@ -0,0 +1,18 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyTotalDto {
+    private String currency;
+    private BigDecimal total;
+    private long itemCount;
+}
@@ -19,6 +19,8 @@ public class DestinationDto {
     private LocalDate arrivalDate;
     private LocalDate departureDate;
     private String location;
+    private Double latitude;
+    private Double longitude;
 
     public static DestinationDto fromDestination(Destination destination) {
         return DestinationDto.builder()
@@ -28,6 +30,8 @@ public class DestinationDto {
                 .arrivalDate(destination.getArrivalDate())
                 .departureDate(destination.getDepartureDate())
                 .location(destination.getLocation())
+                .latitude(destination.getLatitude())
+                .longitude(destination.getLongitude())
                 .build();
     }
 }
@@ -0,0 +1,33 @@
+package com.pv.trip_planner.dto;
+
+import com.pv.trip_planner.services.RateSnapshot;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRatesDto {
+    private String base;
+    private LocalDate asOf;
+    private String defaultCurrency;
+    // Units of each currency per 1 unit of base
+    private Map<String, BigDecimal> rates;
+
+    public static ExchangeRatesDto fromSnapshot(RateSnapshot snapshot, String defaultCurrency) {
+        return ExchangeRatesDto.builder()
+                .base(snapshot.getBase())
+                .asOf(snapshot.getAsOf())
+                .defaultCurrency(defaultCurrency)
+                .rates(new TreeMap<>(snapshot.getRates()))
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.pv.trip_planner.dto;
+
+import com.pv.trip_planner.services.GeoGridIndex;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeoPointDto {
+    // DESTINATION, ITINERARY_ITEM or ACTIVITY; id is the id of that destination, item or activity
+    private GeoGridIndex.Kind type;
+    private Long id;
+    private Long tripId;
+    private Long itineraryItemId;
+    private String name;
+    private String location;
+    private double latitude;
+    private double longitude;
+    // only set for nearby queries
+    private Double distanceKm;
+
+    public static GeoPointDto fromPoint(GeoGridIndex.Point point) {
+        return GeoPointDto.builder()
+                .type(point.kind())
+                .id(point.id())
+                .tripId(point.tripId())
+                .itineraryItemId(point.itineraryItemId())
+                .name(point.name())
+                .location(point.location())
+                .latitude(point.latitude())
+                .longitude(point.longitude())
+                .build();
+    }
+
+    public static GeoPointDto fromNearby(GeoGridIndex.Nearby nearby) {
+        GeoPointDto dto = fromPoint(nearby.point());
+        dto.setDistanceKm(Math.round(nearby.distanceKm() * 1000) / 1000.0);
+        return dto;
+    }
+}
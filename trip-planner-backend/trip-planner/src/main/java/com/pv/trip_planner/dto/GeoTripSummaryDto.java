@@ -0,0 +1,16 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeoTripSummaryDto {
+    private Long tripId;
+    private String title;
+    private long pointCount;
+}
@@ -22,8 +22,24 @@ public class ItineraryItemResponseDto {
     private LocalDate startDate;
     private LocalDate endDate;
     private String location;
+    private Double latitude;
+    private Double longitude;
     private List<ActivityResponseDto> activities;
 
+    // Without activities, which the change feed reports separately
+    public static ItineraryItemResponseDto summaryOf(ItineraryItem item) {
+        return ItineraryItemResponseDto.builder()
+                .id(item.getId())
+                .title(item.getTitle())
+                .description(item.getDescription())
+                .startDate(item.getStartDate())
+                .endDate(item.getEndDate())
+                .location(item.getLocation())
+                .latitude(item.getLatitude())
+                .longitude(item.getLongitude())
+                .build();
+    }
+
     public static ItineraryItemResponseDto fromItineraryItem(ItineraryItem item) {
         return ItineraryItemResponseDto.builder()
                 .id(item.getId())
@@ -32,6 +48,8 @@ public class ItineraryItemResponseDto {
                 .startDate(item.getStartDate())
                 .endDate(item.getEndDate())
                 .location(item.getLocation())
+                .latitude(item.getLatitude())
+                .longitude(item.getLongitude())
                 .activities(item.getActivities() != null ? 
                     item.getActivities().stream()
                         .map(ActivityResponseDto::fromActivity)
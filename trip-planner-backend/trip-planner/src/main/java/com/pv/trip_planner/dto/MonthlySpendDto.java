@@ -0,0 +1,22 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlySpendDto {
+    private Long userId;
+    private YearMonth month;
+    // Currency the total was converted into
+    private String currency;
+    private BigDecimal total;
+    private long itemCount;
+}
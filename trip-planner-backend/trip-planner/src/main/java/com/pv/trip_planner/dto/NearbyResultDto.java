@@ -0,0 +1,23 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyResultDto {
+    // the center searched around; resolved from near= when no coordinates were given
+    private double latitude;
+    private double longitude;
+    private double radiusKm;
+    private long total;
+    // nearest first
+    private List<GeoPointDto> points;
+    private long tookMicros;
+}
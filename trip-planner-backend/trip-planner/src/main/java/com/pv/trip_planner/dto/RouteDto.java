@@ -0,0 +1,25 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteDto {
+    private Long tripId;
+    // "activities" or "destinations"
+    private String stops;
+    private double distanceKm;
+    // the same stops in their current order
+    private double currentDistanceKm;
+    // false if the time budget ran out before the search settled; the route is still valid
+    private boolean complete;
+    private List<RouteSegmentDto> segments;
+    private long tookMillis;
+}
@@ -0,0 +1,25 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteSegmentDto {
+    // the days the stops fall on (from their itinerary items); null for destinations and undated items
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private double distanceKm;
+    private double currentDistanceKm;
+    // proposed visiting order
+    private List<RouteStopDto> stops;
+    // stops whose location could not be resolved, in their current order
+    private List<RouteStopDto> unlocated;
+}
@@ -0,0 +1,24 @@
+package com.pv.trip_planner.dto;
+
+import com.pv.trip_planner.services.GeoGridIndex;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteStopDto {
+    // DESTINATION or ACTIVITY; id is the id of that destination or activity
+    private GeoGridIndex.Kind type;
+    private Long id;
+    private Long itineraryItemId;
+    private String name;
+    private String location;
+    private Double latitude;
+    private Double longitude;
+    // distance from the previous stop; null for the first stop and for stops without coordinates
+    private Double legKm;
+}
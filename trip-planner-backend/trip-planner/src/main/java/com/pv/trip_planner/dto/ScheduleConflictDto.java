@@ -0,0 +1,66 @@
+package com.pv.trip_planner.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.pv.trip_planner.services.ScheduleIndex;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScheduleConflictDto {
+    public enum Type {
+        // two activities at the same time
+        OVERLAP,
+        // two trips on the same dates
+        DOUBLE_BOOKED
+    }
+
+    private Type type;
+    // activity (OVERLAP) or trip (DOUBLE_BOOKED) titles
+    private Long tripId;
+    private Long activityId;
+    private String title;
+    private Long otherTripId;
+    private Long otherActivityId;
+    private String otherTitle;
+    // OVERLAP: the time both activities take up
+    private LocalDateTime start;
+    private LocalDateTime end;
+    // DOUBLE_BOOKED: the days both trips take up
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    public static ScheduleConflictDto fromOverlap(ScheduleIndex.Overlap overlap) {
+        return ScheduleConflictDto.builder()
+                .type(Type.OVERLAP)
+                .tripId(overlap.slot().tripId())
+                .activityId(overlap.slot().activityId())
+                .title(overlap.slot().title())
+                .otherTripId(overlap.other().tripId())
+                .otherActivityId(overlap.other().activityId())
+                .otherTitle(overlap.other().title())
+                .start(ScheduleIndex.toDateTime(overlap.start()))
+                .end(ScheduleIndex.toDateTime(overlap.end()))
+                .build();
+    }
+
+    public static ScheduleConflictDto fromDoubleBooking(ScheduleIndex.DoubleBooking booking) {
+        return ScheduleConflictDto.builder()
+                .type(Type.DOUBLE_BOOKED)
+                .tripId(booking.trip().tripId())
+                .title(booking.trip().title())
+                .otherTripId(booking.other().tripId())
+                .otherTitle(booking.other().title())
+                .startDate(booking.startDate())
+                .endDate(booking.endDate())
+                .build();
+    }
+}
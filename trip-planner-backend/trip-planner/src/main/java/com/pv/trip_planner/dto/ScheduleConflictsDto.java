@@ -0,0 +1,20 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleConflictsDto {
+    // overlapping activities, earliest first
+    private List<ScheduleConflictDto> overlaps;
+    // trips on the same dates, earliest first
+    private List<ScheduleConflictDto> doubleBookings;
+    private long tookMicros;
+}
@@ -0,0 +1,27 @@
+package com.pv.trip_planner.dto;
+
+import com.pv.trip_planner.entities.ChangeLogEntry.ChangeType;
+import com.pv.trip_planner.entities.ChangeLogEntry.EntityType;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripChangeDto {
+    private Long changeId;
+    private EntityType entityType;
+    private Long entityId;
+    private Long tripId;
+    // Itinerary item of an activity, trip of an itinerary item or budget item
+    private Long parentId;
+    private ChangeType changeType;
+    // Current state for upserts (only the field matching entityType is set); null for deletes
+    private TripResponseDto trip;
+    private ItineraryItemResponseDto itineraryItem;
+    private ActivityResponseDto activity;
+    private BudgetItemDto budgetItem;
+}
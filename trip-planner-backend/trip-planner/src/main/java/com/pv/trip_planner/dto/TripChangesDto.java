@@ -0,0 +1,22 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripChangesDto {
+    // Pass as "since" on the next call
+    private Long token;
+    private List<TripChangeDto> changes;
+    // More changes are waiting; call again with the new token
+    private boolean hasMore;
+    // The token is older than the retained log; reload the trips and restart from the new token
+    private boolean resyncRequired;
+}
@@ -0,0 +1,67 @@
+package com.pv.trip_planner.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Child collections of a trip that a response can include, selected with the
+ * {@code include} parameter (e.g. {@code include=itinerary,destinations}). Collections
+ * that aren't selected are neither queried nor serialized.
+ */
+public enum TripInclude {
+    COLLABORATORS("collaborators"),
+    // Itinerary items together with their activities
+    ITINERARY("itinerary"),
+    BUDGET_ITEMS("budgetItems"),
+    PACKING_LIST("packingList"),
+    DESTINATIONS("destinations");
+
+    public static final Set<TripInclude> ALL = Collections.unmodifiableSet(EnumSet.allOf(TripInclude.class));
+    public static final Set<TripInclude> NONE = Collections.unmodifiableSet(EnumSet.noneOf(TripInclude.class));
+
+    private final String paramName;
+
+    TripInclude(String paramName) {
+        this.paramName = paramName;
+    }
+
+    public String paramName() {
+        return paramName;
+    }
+
+    /**
+     * Parses a comma-separated include list. A missing parameter selects everything, as
+     * before the parameter existed; an empty one (or "none") selects only the trip's own
+     * fields and owner.
+     */
+    public static Set<TripInclude> parse(String include) {
+        if (include == null) {
+            return ALL;
+        }
+        Set<TripInclude> parts = EnumSet.noneOf(TripInclude.class);
+        for (String name : include.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty() || trimmed.equalsIgnoreCase("none")) {
+                continue;
+            }
+            if (trimmed.equalsIgnoreCase("all")) {
+                return ALL;
+            }
+            parts.add(fromParam(trimmed));
+        }
+        return parts;
+    }
+
+    private static TripInclude fromParam(String name) {
+        for (TripInclude part : values()) {
+            if (part.paramName.equalsIgnoreCase(name)) {
+                return part;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown include: " + name);
+    }
+}
@@ -0,0 +1,18 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripPageDto {
+    private List<TripResponseDto> trips;
+    // Cursor for the next page, null when this is the last page
+    private Long nextCursor;
+}
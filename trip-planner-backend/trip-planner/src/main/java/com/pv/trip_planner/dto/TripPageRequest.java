@@ -0,0 +1,27 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Query parameters for the keyset-paginated trip listings. Trips are returned in id
+ * order; {@code cursor} is the id of the last trip of the previous page.
+ */
+@Data
+public class TripPageRequest {
+    private Long cursor;
+    private Integer size;
+    private Long ownerId;
+
+    // Only trips overlapping [from, to] are returned
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    // Collections to include, see TripInclude; all of them when absent
+    private String include;
+}
@@ -1,5 +1,6 @@
 package com.pv.trip_planner.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.pv.trip_planner.entities.Trip;
 import com.pv.trip_planner.entities.User;
 import lombok.Data;
@@ -9,6 +10,7 @@ import lombok.AllArgsConstructor;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Data
@@ -22,14 +24,39 @@ public class TripResponseDto {
     private LocalDate startDate;
     private LocalDate endDate;
     private String imageUrl;
+    private List<String> imageVariants;
+    private Long version;
     private UserDto owner;
+
+    // Null when not selected with include=, and then left out of the response
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<UserDto> collaborators;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<ItineraryItemResponseDto> itinerary;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<BudgetItemDto> budgetItems;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<PackingItemDto> packingList;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<DestinationDto> destinations;
 
+    /**
+     * The trip's own fields and owner only; collections are left null (used by the change
+     * feed, where children are reported as changes of their own).
+     */
+    public static TripResponseDto summaryOf(Trip trip) {
+        return fromTrip(trip, TripInclude.NONE);
+    }
+
     public static TripResponseDto fromTrip(Trip trip) {
+        return fromTrip(trip, TripInclude.ALL);
+    }
+
+    /**
+     * Maps the trip with only the selected collections; the others are left null, never
+     * touched (so lazy collections stay unloaded) and omitted from the response.
+     */
+    public static TripResponseDto fromTrip(Trip trip, Set<TripInclude> include) {
         return TripResponseDto.builder()
                 .id(trip.getId())
                 .title(trip.getTitle())
@@ -37,24 +64,27 @@ public class TripResponseDto {
                 .startDate(trip.getStartDate())
                 .endDate(trip.getEndDate())
                 .imageUrl(trip.getImageUrl())
+                .imageVariants(trip.getImageVariants() != null && !trip.getImageVariants().isEmpty() ?
+                    List.of(trip.getImageVariants().split(",")) : List.of())
+                .version(trip.getVersion())
                 .owner(UserDto.fromUser(trip.getOwner()))
-                .collaborators(trip.getCollaborators() != null ? 
+                .collaborators(include.contains(TripInclude.COLLABORATORS) && trip.getCollaborators() != null ? 
                     trip.getCollaborators().stream()
                         .map(UserDto::fromUser)
                         .collect(Collectors.toList()) : null)
-                .itinerary(trip.getItinerary() != null ? 
+                .itinerary(include.contains(TripInclude.ITINERARY) && trip.getItinerary() != null ? 
                     trip.getItinerary().stream()
                         .map(ItineraryItemResponseDto::fromItineraryItem)
                         .collect(Collectors.toList()) : null)
-                .budgetItems(trip.getBudgetItems() != null ? 
+                .budgetItems(include.contains(TripInclude.BUDGET_ITEMS) && trip.getBudgetItems() != null ? 
                     trip.getBudgetItems().stream()
                         .map(BudgetItemDto::fromBudgetItem)
                         .collect(Collectors.toList()) : null)
-                .packingList(trip.getPackingList() != null ? 
+                .packingList(include.contains(TripInclude.PACKING_LIST) && trip.getPackingList() != null ? 
                     trip.getPackingList().stream()
                         .map(PackingItemDto::fromPackingItem)
                         .collect(Collectors.toList()) : null)
-                .destinations(trip.getDestinations() != null ? 
+                .destinations(include.contains(TripInclude.DESTINATIONS) && trip.getDestinations() != null ? 
                     trip.getDestinations().stream()
                         .map(DestinationDto::fromDestination)
                         .collect(Collectors.toList()) : null)
@@ -0,0 +1,49 @@
+package com.pv.trip_planner.dto;
+
+import com.pv.trip_planner.services.TripSearchIndex;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSearchHitDto {
+    private Long tripId;
+    private String title;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private double score;
+    private List<Match> matches;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Match {
+        // e.g. ACTIVITY_TITLE; entityId is the id of that trip, itinerary item, activity or destination
+        private TripSearchIndex.Field field;
+        private Long entityId;
+        private String text;
+    }
+
+    public static TripSearchHitDto fromHit(TripSearchIndex.Hit hit, List<TripSearchIndex.Match> matches) {
+        TripSearchIndex.Document document = hit.document();
+        return TripSearchHitDto.builder()
+                .tripId(document.tripId())
+                .title(document.title())
+                .startDate(document.startDate())
+                .endDate(document.endDate())
+                .score(Math.round(hit.score() * 1000) / 1000.0)
+                .matches(matches.stream()
+                        .map(match -> new Match(match.field(), match.entityId(), match.text()))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of search hits. total and the facets count every matching trip, not just the
+ * returned hits; startMonths buckets trips by the month they start in (yyyy-MM).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSearchResultDto {
+    private String query;
+    private int total;
+    private List<TripSearchHitDto> hits;
+    private List<SearchFacetDto> destinations;
+    private List<SearchFacetDto> startMonths;
+    private long tookMicros;
+}
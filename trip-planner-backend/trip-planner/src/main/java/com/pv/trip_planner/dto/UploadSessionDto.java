@@ -0,0 +1,33 @@
+package com.pv.trip_planner.dto;
+
+import com.pv.trip_planner.entities.UploadSession;
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDto {
+    private String uploadId;
+    private String originalFilename;
+    private String contentType;
+    private long totalSize;
+    private long receivedBytes;
+    private boolean complete;
+    // Stored filename, set once the upload has been completed
+    private String filename;
+
+    public static UploadSessionDto fromSession(UploadSession session) {
+        return UploadSessionDto.builder()
+                .uploadId(session.getId())
+                .originalFilename(session.getOriginalFilename())
+                .contentType(session.getContentType())
+                .totalSize(session.getTotalSize())
+                .receivedBytes(session.getReceivedBytes())
+                .complete(false)
+                .build();
+    }
+}
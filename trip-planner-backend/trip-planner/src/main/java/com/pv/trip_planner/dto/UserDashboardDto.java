@@ -1,11 +1,15 @@
 package com.pv.trip_planner.dto;
 
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
 import lombok.Data;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Data
 @Builder
@@ -17,4 +21,34 @@ public class UserDashboardDto {
     private List<ItineraryItemResponseDto> itineraryItems;
     private List<ActivityResponseDto> activities;
     private boolean isAdmin;
+
+    /**
+     * Builds the dashboard from an already loaded trip graph. The itinerary item and
+     * activity lists reuse the DTOs built for the trips instead of mapping the entities again.
+     */
+    public static UserDashboardDto fromTrips(User user, List<Trip> trips, boolean isAdmin) {
+        List<TripResponseDto> tripDtos = trips.stream()
+                .map(TripResponseDto::fromTrip)
+                .collect(Collectors.toList());
+
+        List<ItineraryItemResponseDto> itineraryItems = tripDtos.stream()
+                .map(TripResponseDto::getItinerary)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        List<ActivityResponseDto> activities = itineraryItems.stream()
+                .map(ItineraryItemResponseDto::getActivities)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        return UserDashboardDto.builder()
+                .user(UserDto.fromUser(user))
+                .trips(tripDtos)
+                .itineraryItems(itineraryItems)
+                .activities(activities)
+                .isAdmin(isAdmin)
+                .build();
+    }
 }
@@ -0,0 +1,20 @@
+package com.pv.trip_planner.dto;
+
+import lombok.Data;
+import lombok.Builder;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WithinResultDto {
+    private long total;
+    private List<GeoPointDto> points;
+    // trips with points in the box, most points first; covers all points, not only the returned ones
+    private List<GeoTripSummaryDto> trips;
+    private long tookMicros;
+}
@@ -8,13 +8,21 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinTable;
+import jakarta.persistence.Version;
 import jakarta.persistence.Table;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.SequenceGenerator;
 
 @Getter
 @Setter
@@ -24,15 +32,37 @@ import jakarta.persistence.GenerationType;
 @Entity
 @Table(name = "activities")
 public class Activity {
+    // Pooled sequence (50 ids per round trip) so inserts can be JDBC-batched; IDENTITY can't be
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activities_seq")
+    @SequenceGenerator(name = "activities_seq", sequenceName = "activities_seq", allocationSize = 50)
     private Long id;
 
     private String title;
     private String description;
     private String location;
+
+    // WGS84 coordinates of location; sent by the client or resolved by GeocodingService
+    private Double latitude;
+    private Double longitude;
+
     private LocalTime startTime;
     LocalTime endTime;
 
+    // Mapped onto the existing join table so no data migration is needed
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinTable(
+        name = "itinerary_items_activities",
+        joinColumns = @JoinColumn(name = "activities_id"),
+        inverseJoinColumns = @JoinColumn(name = "itinerary_item_id")
+    )
+    @JsonIgnore
+    private ItineraryItem itineraryItem;
+
+    // Optimistic lock: concurrent edits from collaborators fail instead of overwriting each other
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
 }
     
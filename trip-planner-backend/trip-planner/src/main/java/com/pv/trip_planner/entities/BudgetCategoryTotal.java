@@ -0,0 +1,47 @@
+package com.pv.trip_planner.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Running total of a trip's budget items in one category and currency, kept up to date by
+ * BudgetRollupService in the same transaction as every item write, so budget summaries
+ * read a handful of rows instead of every expense.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@IdClass(BudgetCategoryTotal.Key.class)
+@Table(name = "budget_category_totals")
+public class BudgetCategoryTotal {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long tripId;
+        private String category;
+        private String currency;
+    }
+
+    @Id
+    @Column(name = "trip_id")
+    private Long tripId;
+
+    @Id
+    private String category;
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    // In the currency's minor units
+    private long totalMinor;
+
+    private long itemCount;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Getter
 @Setter
@@ -11,7 +12,9 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "budget_items")
+@Table(name = "budget_items", indexes = {
+    @Index(name = "idx_budget_items_trip_id", columnList = "trip_id")
+})
 public class BudgetItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,8 +22,24 @@ public class BudgetItem {
 
     private String description;
     private BigDecimal amount;
+
+    // ISO 4217 code; null on items recorded before budgets had currencies (the default currency)
+    @Column(length = 3)
+    private String currency;
+
+    // The amount in the currency's minor units (e.g. cents), which is what rollups sum
+    private Long amountMinor;
+
     private String category;
 
+    // Day the money was spent; buckets the item into MonthlySpend
+    private LocalDate spentOn;
+
+    // Who paid; null on items recorded before expenses were attributed
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "paid_by_id")
+    private User paidBy;
+
     @ManyToOne
     @JoinColumn(name = "trip_id", nullable = false)
     private Trip trip;
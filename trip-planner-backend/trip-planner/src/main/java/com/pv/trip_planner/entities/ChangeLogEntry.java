@@ -0,0 +1,83 @@
+package com.pv.trip_planner.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One write to a trip or one of its children. The id doubles as the sync token handed to
+ * clients of the change feed, so it only ever increases.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "trip_change_log", indexes = {
+    @Index(name = "idx_trip_change_log_trip_id", columnList = "trip_id, id"),
+    @Index(name = "idx_trip_change_log_changed_at", columnList = "changed_at")
+})
+public class ChangeLogEntry {
+
+    public enum EntityType { TRIP, ITINERARY_ITEM, ACTIVITY, BUDGET_ITEM }
+
+    public enum ChangeType { UPSERT, DELETE }
+
+    // The enum columns are stored by name through converters rather than @Enumerated, which
+    // would add a CHECK listing the values when the table is created; ddl-auto=update never
+    // revisits it, so values added to the enums later would be rejected
+
+    @Converter
+    public static class EntityTypeConverter implements AttributeConverter<EntityType, String> {
+        @Override
+        public String convertToDatabaseColumn(EntityType value) {
+            return value != null ? value.name() : null;
+        }
+
+        @Override
+        public EntityType convertToEntityAttribute(String value) {
+            return value != null ? EntityType.valueOf(value) : null;
+        }
+    }
+
+    @Converter
+    public static class ChangeTypeConverter implements AttributeConverter<ChangeType, String> {
+        @Override
+        public String convertToDatabaseColumn(ChangeType value) {
+            return value != null ? value.name() : null;
+        }
+
+        @Override
+        public ChangeType convertToEntityAttribute(String value) {
+            return value != null ? ChangeType.valueOf(value) : null;
+        }
+    }
+
+    // Rows are inserted by ChangeFeedService with nextval() per row: a pooled allocation
+    // would hand out ids out of order across instances and break the sync tokens
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trip_change_log_seq")
+    @SequenceGenerator(name = "trip_change_log_seq", sequenceName = "trip_change_log_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "trip_id", nullable = false)
+    private Long tripId;
+
+    @Convert(converter = EntityTypeConverter.class)
+    @Column(nullable = false, length = 32)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    // Itinerary item of an activity, trip of an itinerary item or budget item
+    private Long parentId;
+
+    @Convert(converter = ChangeTypeConverter.class)
+    @Column(nullable = false, length = 32)
+    private ChangeType changeType;
+
+    private LocalDateTime changedAt;
+}
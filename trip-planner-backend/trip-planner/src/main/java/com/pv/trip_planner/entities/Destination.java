@@ -23,6 +23,10 @@ public class Destination {
     private LocalDate departureDate;
     private String location;
 
+    // WGS84 coordinates of location; sent by the client or resolved by GeocodingService
+    private Double latitude;
+    private Double longitude;
+
     @ManyToOne
     @JoinColumn(name = "trip_id", nullable = false)
     private Trip trip;
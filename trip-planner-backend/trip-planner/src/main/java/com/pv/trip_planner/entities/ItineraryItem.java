@@ -16,8 +16,10 @@ import java.util.List;
 @Entity
 @Table(name = "itinerary_items")
 public class ItineraryItem {
+    // Pooled sequence (50 ids per round trip) so inserts can be JDBC-batched; IDENTITY can't be
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itinerary_items_seq")
+    @SequenceGenerator(name = "itinerary_items_seq", sequenceName = "itinerary_items_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -25,11 +27,25 @@ public class ItineraryItem {
     private LocalDate startDate;
     private LocalDate endDate;
     private String location;
+
+    // WGS84 coordinates of location; sent by the client or resolved by GeocodingService
+    private Double latitude;
+    private Double longitude;
+
     // @ManyToOne
     // @JoinColumn(name = "trip_id", nullable = false)
     // @JsonIgnore
     // private Trip trip;
 
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    // Owned by Activity.itineraryItem, so activity edits touch one join row instead of the bag
+    @OneToMany(mappedBy = "itineraryItem", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Activity> activities;
+
+    // Items arrive from JSON with nested activities; point each one back at its item
+    @PrePersist
+    void linkActivities() {
+        if (activities != null) {
+            activities.forEach(activity -> activity.setItineraryItem(this));
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package com.pv.trip_planner.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Running total of what one user paid in one calendar month and currency, across all trips. Maintained
+ * by BudgetRollupService alongside BudgetCategoryTotal.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@IdClass(MonthlySpend.Key.class)
+@Table(name = "monthly_spend")
+public class MonthlySpend {
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate month;
+        private String currency;
+    }
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    // First day of the month
+    @Id
+    private LocalDate month;
+
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    // In the currency's minor units
+    private long totalMinor;
+
+    private long itemCount;
+}
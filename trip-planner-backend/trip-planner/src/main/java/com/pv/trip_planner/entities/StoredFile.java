@@ -0,0 +1,23 @@
+package com.pv.trip_planner.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Reference count for a content-addressed file in the upload store. The filename is the
+ * SHA-256 of the bytes plus the original extension, so identical uploads share one row.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "stored_files")
+public class StoredFile {
+    @Id
+    private String filename;
+
+    private long size;
+    private int refCount;
+}
@@ -2,6 +2,7 @@ package com.pv.trip_planner.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,6 +26,15 @@ public class Trip {
     private LocalDate endDate;
     private String imageUrl;
 
+    // Comma-separated names of the generated image variants (e.g. "thumb,card,hero")
+    private String imageVariants;
+
+    // Bumped by ChangeFeedService on every change to the trip or its children; never
+    // written by entity saves, so concurrent edits don't fail on it
+    @Column(insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     @ManyToOne
     @JoinColumn(name = "owner_id", nullable = false)
     private User owner;
@@ -0,0 +1,32 @@
+package com.pv.trip_planner.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload in progress. Bytes are appended to a part file in the upload store's
+ * incoming directory; receivedBytes is the offset the next chunk must start at.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "upload_sessions")
+public class UploadSession {
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private Long ownerId;
+
+    private String originalFilename;
+    private String contentType;
+    private long totalSize;
+    private long receivedBytes;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
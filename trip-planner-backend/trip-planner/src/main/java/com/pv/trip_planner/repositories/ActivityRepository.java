@@ -0,0 +1,58 @@
+package com.pv.trip_planner.repositories;
+
+import java.time.LocalTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pv.trip_planner.entities.Activity;
+
+public interface ActivityRepository extends JpaRepository<Activity, Long> {
+
+    @Query("SELECT a FROM Activity a WHERE a.id = :activityId AND a.itineraryItem.id = :itemId")
+    Optional<Activity> findInItineraryItem(@Param("activityId") Long activityId, @Param("itemId") Long itemId);
+
+    /**
+     * Locks one activity of the item until the transaction ends and returns its version, so
+     * a version checked here still holds when the activity is patched or deleted. Native,
+     * because Hibernate drops the lock on scalar queries and, for an entity mapped through a
+     * join table, locks it in a follow-up query that fails on a concurrent change.
+     */
+    @Query(value = "SELECT a.version FROM activities a"
+            + " JOIN itinerary_items_activities j ON j.activities_id = a.id"
+            + " WHERE a.id = :activityId AND j.itinerary_item_id = :itemId FOR UPDATE OF a", nativeQuery = true)
+    Optional<Long> lockInItineraryItem(@Param("activityId") Long activityId, @Param("itemId") Long itemId);
+
+    // Removes the activity and its join row without loading it
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Activity a WHERE a.id = :activityId")
+    int deleteByKey(@Param("activityId") Long activityId);
+
+    /**
+     * Patches the non-null fields of one activity and bumps its version. With a version the
+     * update only applies if nobody changed the activity since the client read it. With
+     * relocate the coordinates are replaced, null included, since a new location may not
+     * resolve to any.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Activity a SET a.title = COALESCE(:title, a.title),"
+            + " a.description = COALESCE(:description, a.description),"
+            + " a.location = COALESCE(:location, a.location),"
+            + " a.latitude = CASE WHEN :relocate = true THEN :latitude ELSE a.latitude END,"
+            + " a.longitude = CASE WHEN :relocate = true THEN :longitude ELSE a.longitude END,"
+            + " a.startTime = COALESCE(:startTime, a.startTime),"
+            + " a.endTime = COALESCE(:endTime, a.endTime),"
+            + " a.version = a.version + 1"
+            + " WHERE a.id = :activityId AND (:version IS NULL OR a.version = :version)")
+    int patch(@Param("activityId") Long activityId, @Param("version") Long version,
+              @Param("title") String title, @Param("description") String description,
+              @Param("location") String location, @Param("relocate") boolean relocate,
+              @Param("latitude") Double latitude, @Param("longitude") Double longitude,
+              @Param("startTime") LocalTime startTime, @Param("endTime") LocalTime endTime);
+}
@@ -0,0 +1,41 @@
+package com.pv.trip_planner.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.pv.trip_planner.entities.BudgetCategoryTotal;
+
+public interface BudgetCategoryTotalRepository extends JpaRepository<BudgetCategoryTotal, BudgetCategoryTotal.Key> {
+
+    List<BudgetCategoryTotal> findByTripIdOrderByCategoryAscCurrencyAsc(Long tripId);
+
+    // Atomic upsert of a delta (negative when an item is removed or changed)
+    @Modifying
+    @Query(value = "INSERT INTO budget_category_totals (trip_id, category, currency, total_minor, item_count)"
+            + " VALUES (:tripId, :category, :currency, :amountMinor, :count)"
+            + " ON CONFLICT (trip_id, category, currency) DO UPDATE SET"
+            + " total_minor = budget_category_totals.total_minor + EXCLUDED.total_minor,"
+            + " item_count = budget_category_totals.item_count + EXCLUDED.item_count", nativeQuery = true)
+    void addDelta(@Param("tripId") Long tripId, @Param("category") String category,
+                  @Param("currency") String currency, @Param("amountMinor") long amountMinor,
+                  @Param("count") long count);
+
+    @Modifying
+    @Query("DELETE FROM BudgetCategoryTotal t WHERE t.tripId = :tripId AND t.itemCount <= 0")
+    int deleteEmpty(@Param("tripId") Long tripId);
+
+    @Query("SELECT COALESCE(SUM(t.itemCount), 0) FROM BudgetCategoryTotal t")
+    long countRolledUpItems();
+
+    // Full recomputation with GROUP BY; the table must be empty first
+    @Modifying
+    @Query(value = "INSERT INTO budget_category_totals (trip_id, category, currency, total_minor, item_count)"
+            + " SELECT trip_id, COALESCE(NULLIF(TRIM(category), ''), 'uncategorized'), currency,"
+            + " SUM(COALESCE(amount_minor, 0)), COUNT(*)"
+            + " FROM budget_items GROUP BY 1, 2, 3", nativeQuery = true)
+    int rebuildFromItems();
+}
@@ -0,0 +1,43 @@
+package com.pv.trip_planner.repositories;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.pv.trip_planner.entities.BudgetItem;
+
+import jakarta.persistence.LockModeType;
+
+public interface BudgetItemRepository extends JpaRepository<BudgetItem, Long> {
+
+    @Query("SELECT b FROM BudgetItem b WHERE b.trip.id = :tripId ORDER BY b.id")
+    List<BudgetItem> findByTripId(@Param("tripId") Long tripId);
+
+    // Row lock for edits: the rollup delta is computed from the values read here, so two
+    // concurrent edits of the same item must not both start from the same old amount
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BudgetItem b WHERE b.id = :itemId AND b.trip.id = :tripId")
+    Optional<BudgetItem> findInTripForUpdate(@Param("itemId") Long itemId, @Param("tripId") Long tripId);
+
+    @Query("SELECT COUNT(b) FROM BudgetItem b WHERE b.paidBy IS NOT NULL AND b.spentOn IS NOT NULL")
+    long countAttributed();
+
+    // Items without a currency whose amount has more decimals than a currency with these minor digits allows
+    @Query(value = "SELECT COUNT(*) FROM budget_items WHERE currency IS NULL AND amount <> ROUND(amount, :digits)",
+            nativeQuery = true)
+    long countLegacyFinerThan(@Param("digits") int digits);
+
+    // Items from before budgets had currencies are in the default currency; unit is 10^digits.
+    // Amounts are never rounded: items that don't fit the currency are left untouched
+    @Modifying
+    @Query(value = "UPDATE budget_items SET currency = :currency, amount_minor = COALESCE(amount, 0) * :unit"
+            + " WHERE currency IS NULL AND (amount IS NULL OR amount = ROUND(amount, :digits))", nativeQuery = true)
+    int assignLegacyCurrency(@Param("currency") String currency, @Param("digits") int digits,
+                             @Param("unit") BigDecimal unit);
+}
@@ -0,0 +1,42 @@
+package com.pv.trip_planner.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pv.trip_planner.entities.ChangeLogEntry;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("SELECT c FROM ChangeLogEntry c WHERE c.id > :since ORDER BY c.id")
+    List<ChangeLogEntry> findSince(@Param("since") Long since, Limit limit);
+
+    // Uses idx_trip_change_log_trip_id for the trips the user owns or collaborates on
+    @Query("SELECT c FROM ChangeLogEntry c WHERE c.id > :since AND c.tripId IN"
+            + " (SELECT t.id FROM Trip t LEFT JOIN t.collaborators u WHERE t.owner.id = :userId OR u.id = :userId)"
+            + " ORDER BY c.id")
+    List<ChangeLogEntry> findSinceForUser(@Param("since") Long since, @Param("userId") Long userId, Limit limit);
+
+    /**
+     * The highest id below every entry changed after {@code settled}: the token a client can
+     * start from without skipping an entry that is still being committed. One statement, so
+     * both bounds come from the same snapshot.
+     */
+    @Query(value = "SELECT COALESCE((SELECT MIN(id) - 1 FROM trip_change_log WHERE changed_at > :settled),"
+            + " (SELECT MAX(id) FROM trip_change_log), 0)", nativeQuery = true)
+    Long findSettledId(@Param("settled") LocalDateTime settled);
+
+    @Query("SELECT MIN(c.id) FROM ChangeLogEntry c")
+    Long findOldestId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.changedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
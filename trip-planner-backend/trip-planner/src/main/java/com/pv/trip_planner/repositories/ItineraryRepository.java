@@ -1,10 +1,22 @@
 package com.pv.trip_planner.repositories;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.pv.trip_planner.entities.ItineraryItem;
 
 
 public interface ItineraryRepository extends JpaRepository<ItineraryItem, Long> {
-    
+
+    @Query("SELECT DISTINCT i FROM ItineraryItem i LEFT JOIN FETCH i.activities WHERE i.id IN :ids")
+    List<ItineraryItem> fetchActivities(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT i.startDate FROM ItineraryItem i WHERE i.id = :id")
+    Optional<LocalDate> findStartDateById(@Param("id") Long id);
 }
@@ -0,0 +1,46 @@
+package com.pv.trip_planner.repositories;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Counts JDBC round trips (single statements and batch executions) on the current thread.
+ * Hibernate creates one listener per session via {@code hibernate.session.events.auto};
+ * the counter itself is thread-bound so a service can measure one unit of work:
+ *
+ * <pre>
+ * JdbcStatementCounter.start();
+ * ... persist / flush ...
+ * long statements = JdbcStatementCounter.stop();
+ * </pre>
+ */
+public class JdbcStatementCounter extends BaseSessionEventListener {
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new long[1]);
+    }
+
+    public static long stop() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        increment();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        increment();
+    }
+
+    private static void increment() {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.pv.trip_planner.repositories;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.pv.trip_planner.entities.MonthlySpend;
+
+public interface MonthlySpendRepository extends JpaRepository<MonthlySpend, MonthlySpend.Key> {
+
+    // Months are first days of the month; a null bound or user leaves that side open
+    @Query("SELECT m FROM MonthlySpend m WHERE (:userId IS NULL OR m.userId = :userId)"
+            + " AND (CAST(:from AS LocalDate) IS NULL OR m.month >= :from)"
+            + " AND (CAST(:to AS LocalDate) IS NULL OR m.month <= :to)"
+            + " ORDER BY m.userId, m.month, m.currency")
+    List<MonthlySpend> findInRange(@Param("userId") Long userId, @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_spend (user_id, month, currency, total_minor, item_count)"
+            + " VALUES (:userId, :month, :currency, :amountMinor, :count)"
+            + " ON CONFLICT (user_id, month, currency) DO UPDATE SET"
+            + " total_minor = monthly_spend.total_minor + EXCLUDED.total_minor,"
+            + " item_count = monthly_spend.item_count + EXCLUDED.item_count", nativeQuery = true)
+    void addDelta(@Param("userId") Long userId, @Param("month") LocalDate month,
+                  @Param("currency") String currency, @Param("amountMinor") long amountMinor,
+                  @Param("count") long count);
+
+    @Modifying
+    @Query("DELETE FROM MonthlySpend m WHERE m.userId = :userId AND m.itemCount <= 0")
+    int deleteEmpty(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(m.itemCount), 0) FROM MonthlySpend m")
+    long countRolledUpItems();
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_spend (user_id, month, currency, total_minor, item_count)"
+            + " SELECT paid_by_id, CAST(date_trunc('month', spent_on) AS date), currency,"
+            + " SUM(COALESCE(amount_minor, 0)), COUNT(*)"
+            + " FROM budget_items WHERE paid_by_id IS NOT NULL AND spent_on IS NOT NULL"
+            + " GROUP BY 1, 2, 3", nativeQuery = true)
+    int rebuildFromItems();
+}
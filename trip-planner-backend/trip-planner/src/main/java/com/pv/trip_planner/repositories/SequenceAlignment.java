@@ -0,0 +1,45 @@
+package com.pv.trip_planner.repositories;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the pooled id sequences past the ids already in their tables. Itinerary items and
+ * activities used IDENTITY columns before, so on an existing database the sequences that
+ * Hibernate creates start below max(id). Runs once the schema is updated but before the
+ * server accepts requests, so the pooled optimizer never fetches a block from the old
+ * position. Only ever moves forward.
+ */
+@Component
+public class SequenceAlignment implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceAlignment.class);
+
+    // sequence -> table; both entities use ALLOCATION_SIZE
+    private static final String[][] SEQUENCES = {
+            { "itinerary_items_seq", "itinerary_items" },
+            { "activities_seq", "activities" },
+    };
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String[] sequence : SEQUENCES) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + sequence[1], Long.class);
+            Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence[0], Long.class);
+            // The pooled optimizer hands out (value - allocationSize, value], so value must clear max(id)
+            long required = maxId + ALLOCATION_SIZE;
+            if (lastValue == null || lastValue < required) {
+                jdbcTemplate.queryForObject("SELECT setval(?, ?)", Long.class, sequence[0], required);
+                logger.info("Advanced {} to {} (max id in {} is {})", sequence[0], required, sequence[1], maxId);
+            }
+        }
+    }
+}
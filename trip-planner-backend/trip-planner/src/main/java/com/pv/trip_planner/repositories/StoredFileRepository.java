@@ -0,0 +1,30 @@
+package com.pv.trip_planner.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pv.trip_planner.entities.StoredFile;
+
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+
+    // Atomic upsert, so concurrent uploads of the same bytes never lose a reference
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stored_files (filename, size, ref_count) VALUES (:filename, :size, 1)"
+            + " ON CONFLICT (filename) DO UPDATE SET ref_count = stored_files.ref_count + 1", nativeQuery = true)
+    void addReference(@Param("filename") String filename, @Param("size") long size);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredFile s SET s.refCount = s.refCount - 1 WHERE s.filename = :filename AND s.refCount > 0")
+    int removeReference(@Param("filename") String filename);
+
+    // Returns 1 when the last reference was dropped and the bytes may be deleted
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredFile s WHERE s.filename = :filename AND s.refCount <= 0")
+    int deleteIfUnreferenced(@Param("filename") String filename);
+}
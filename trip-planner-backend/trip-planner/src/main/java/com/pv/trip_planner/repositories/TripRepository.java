@@ -1,16 +1,116 @@
 package com.pv.trip_planner.repositories;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.pv.trip_planner.entities.Trip;
 import com.pv.trip_planner.entities.User;
 
+import jakarta.persistence.QueryHint;
+
 public interface TripRepository extends JpaRepository<Trip, Long> {
     
-    @Query("SELECT t FROM Trip t WHERE t.owner = :user OR :user MEMBER OF t.collaborators")
+    @Query("SELECT t FROM Trip t JOIN FETCH t.owner o LEFT JOIN FETCH o.roles WHERE t.owner = :user OR :user MEMBER OF t.collaborators")
     List<Trip> findByOwnerOrCollaboratorsContaining(@Param("user") User user);
+
+    @Query("SELECT t FROM Trip t JOIN FETCH t.owner o LEFT JOIN FETCH o.roles")
+    List<Trip> findAllWithOwner();
+
+    @Query("SELECT t FROM Trip t JOIN FETCH t.owner o LEFT JOIN FETCH o.roles WHERE t.id = :id")
+    Optional<Trip> findWithOwnerById(@Param("id") Long id);
+
+    // Access predicate evaluated by the database, so denied lookups never load the trip
+    @Query("SELECT COUNT(t) > 0 FROM Trip t LEFT JOIN t.collaborators c"
+            + " WHERE t.id = :tripId AND (t.owner.id = :userId OR c.id = :userId)")
+    boolean isAccessibleBy(@Param("tripId") Long tripId, @Param("userId") Long userId);
+
+    @Query("SELECT t FROM Trip t JOIN FETCH t.owner o LEFT JOIN FETCH o.roles WHERE t.id IN :ids ORDER BY t.id")
+    List<Trip> findAllWithOwnerByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Trip t SET t.version = t.version + 1 WHERE t.id = :tripId")
+    int incrementVersion(@Param("tripId") Long tripId);
+
+    // Everything a conditional GET needs, without touching the trip graph
+    @Query("SELECT t.version FROM Trip t WHERE t.id = :tripId")
+    Optional<Long> findVersionById(@Param("tripId") Long tripId);
+
+    // Parent trip of an itinerary item, through the trips_itinerary join table
+    @Query("SELECT t.id FROM Trip t JOIN t.itinerary i WHERE i.id = :itemId")
+    Optional<Long> findTripIdByItineraryItemId(@Param("itemId") Long itemId);
+
+    // Row lock for replacing the image: the previous file is released once, by the one
+    // transaction that actually replaced it. Native, since Hibernate drops the lock on scalar queries
+    @Query(value = "SELECT image_url FROM trips WHERE id = :tripId FOR UPDATE", nativeQuery = true)
+    Optional<String> findImageUrlForUpdate(@Param("tripId") Long tripId);
+
+    // Variants of the previous image no longer apply, so they are cleared with it
+    @Modifying
+    @Transactional
+    @Query("UPDATE Trip t SET t.imageUrl = :imageUrl, t.imageVariants = NULL WHERE t.id = :tripId")
+    int updateImage(@Param("tripId") Long tripId, @Param("imageUrl") String imageUrl);
+
+    // Single-column update used by the background image pipeline; never loads the trip
+    @Modifying
+    @Transactional
+    @Query("UPDATE Trip t SET t.imageVariants = :variants WHERE t.id = :tripId AND t.imageUrl = :imageUrl")
+    int updateImageVariants(@Param("tripId") Long tripId, @Param("imageUrl") String imageUrl,
+                            @Param("variants") String variants);
+
+    // Keyset pages select ids only, so the limit is applied by the database and not
+    // in memory as it would be with a collection fetch join
+
+    @Query("SELECT t.id FROM Trip t WHERE t.id > :afterId"
+            + " AND (:ownerId IS NULL OR t.owner.id = :ownerId)"
+            + " AND (CAST(:from AS LocalDate) IS NULL OR t.endDate >= :from)"
+            + " AND (CAST(:to AS LocalDate) IS NULL OR t.startDate <= :to)"
+            + " ORDER BY t.id")
+    List<Long> findPageIds(@Param("afterId") Long afterId, @Param("ownerId") Long ownerId,
+            @Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+
+    @Query("SELECT t.id FROM Trip t WHERE (t.owner = :user OR :user MEMBER OF t.collaborators)"
+            + " AND t.id > :afterId"
+            + " AND (:ownerId IS NULL OR t.owner.id = :ownerId)"
+            + " AND (CAST(:from AS LocalDate) IS NULL OR t.endDate >= :from)"
+            + " AND (CAST(:to AS LocalDate) IS NULL OR t.startDate <= :to)"
+            + " ORDER BY t.id")
+    List<Long> findPageIdsForUser(@Param("user") User user, @Param("afterId") Long afterId,
+            @Param("ownerId") Long ownerId, @Param("from") LocalDate from, @Param("to") LocalDate to,
+            Limit limit);
+
+    // Server-side cursor over all trip ids; must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.id FROM Trip t ORDER BY t.id")
+    Stream<Long> streamAllIds();
+
+    // Association fetches used by TripGraphLoader: each one initializes a single
+    // collection for a whole batch of trips already present in the persistence context.
+
+    @Query("SELECT DISTINCT t FROM Trip t LEFT JOIN FETCH t.collaborators c LEFT JOIN FETCH c.roles WHERE t.id IN :ids")
+    List<Trip> fetchCollaborators(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT t FROM Trip t LEFT JOIN FETCH t.itinerary WHERE t.id IN :ids")
+    List<Trip> fetchItinerary(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT t FROM Trip t LEFT JOIN FETCH t.budgetItems WHERE t.id IN :ids")
+    List<Trip> fetchBudgetItems(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT t FROM Trip t LEFT JOIN FETCH t.packingList WHERE t.id IN :ids")
+    List<Trip> fetchPackingList(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT t FROM Trip t LEFT JOIN FETCH t.destinations WHERE t.id IN :ids")
+    List<Trip> fetchDestinations(@Param("ids") Collection<Long> ids);
 }
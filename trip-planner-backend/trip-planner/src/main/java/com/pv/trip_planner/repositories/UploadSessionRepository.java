@@ -0,0 +1,25 @@
+package com.pv.trip_planner.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pv.trip_planner.entities.UploadSession;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Only advances from the expected offset, so two writers can never both commit the same chunk
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.receivedBytes = :newOffset, s.updatedAt = :now"
+            + " WHERE s.id = :id AND s.receivedBytes = :expectedOffset")
+    int advanceOffset(@Param("id") String id, @Param("expectedOffset") long expectedOffset,
+                      @Param("newOffset") long newOffset, @Param("now") LocalDateTime now);
+
+    List<UploadSession> findByUpdatedAtBefore(LocalDateTime cutoff);
+}
@@ -1,31 +1,63 @@
 package com.pv.trip_planner.security;
 
+import com.pv.trip_planner.entities.Role;
 import com.pv.trip_planner.entities.User;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+/**
+ * An immutable snapshot of the user taken when the principal is loaded. Principals are cached
+ * across requests (UserPrincipalCache), so no entity is kept: every getUser() call builds a
+ * new detached User, and nothing a request does to it reaches other requests.
+ */
 public class CustomUserDetails implements UserDetails {
-    
-    private final User user;
+
+    private record RoleSnapshot(Long id, Role.RoleType name, String description) {
+    }
+
+    private final Long userId;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final List<RoleSnapshot> roles;
     private final Collection<? extends GrantedAuthority> authorities;
 
     public CustomUserDetails(User user) {
-        this.user = user;
-        this.authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName().name()))
-                .collect(Collectors.toList());
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.roles = user.getRoles() == null ? List.of() : user.getRoles().stream()
+                .map(role -> new RoleSnapshot(role.getId(), role.getName(), role.getDescription()))
+                .toList();
+        this.authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name().name()))
+                .toList();
     }
 
+    // A fresh copy on every call
     public User getUser() {
-        return user;
+        Set<Role> userRoles = new HashSet<>();
+        for (RoleSnapshot role : roles) {
+            userRoles.add(Role.builder().id(role.id()).name(role.name()).description(role.description()).build());
+        }
+        return User.builder()
+                .id(userId)
+                .username(username)
+                .email(email)
+                .password(password)
+                .roles(userRoles)
+                .build();
     }
 
     public Long getUserId() {
-        return user.getId();
+        return userId;
     }
 
     @Override
@@ -35,12 +67,12 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
     @Override
@@ -2,14 +2,24 @@ package com.pv.trip_planner.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
@@ -24,8 +34,46 @@ public class JwtTokenUtil {
     @Value("${jwt.refresh-token.expiration}")
     private Long refreshExpiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Both are immutable and thread-safe, so they are built once instead of per call
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Verified claims keyed by a SHA-256 digest of the token; entries expire with the token
+    private final Map<String, CachedClaims> claimsCache = new ConcurrentHashMap<>();
+
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    private record CachedClaims(Claims claims, long expiresAtMillis) {
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+
+        cacheHits = Counter.builder("jwt.claims.cache")
+                .description("Verified JWT claims served from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        cacheMisses = Counter.builder("jwt.claims.cache")
+                .description("JWT tokens that had to be signature-verified")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("jwt.claims.cache.size", claimsCache, Map::size)
+                .description("Verified JWT claims currently cached")
+                .register(meterRegistry);
     }
 
     public String extractUsername(String token) {
@@ -51,23 +99,23 @@ public class JwtTokenUtil {
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        
+
         // Add user ID to claims if it's our custom UserDetails
         if (userDetails instanceof CustomUserDetails) {
             claims.put("userId", ((CustomUserDetails) userDetails).getUserId());
         }
-        
+
         return createToken(claims, userDetails.getUsername(), expiration);
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        
+
         // Add user ID to claims if it's our custom UserDetails
         if (userDetails instanceof CustomUserDetails) {
             claims.put("userId", ((CustomUserDetails) userDetails).getUserId());
         }
-        
+
         return createToken(claims, userDetails.getUsername(), refreshExpiration);
     }
 
@@ -77,38 +125,76 @@ public class JwtTokenUtil {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = getClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && claims.getExpiration().after(new Date()));
     }
 
     public Boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
             return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
+        } catch (RuntimeException e) {
             return false;
         }
     }
 
+    /**
+     * Returns the verified claims of the token. The signature is checked on the first
+     * call only; later calls for the same token are served from the cache until the
+     * token expires.
+     */
+    public Claims getClaims(String token) {
+        if (token == null) {
+            throw new RuntimeException("Invalid JWT token");
+        }
 
+        String cacheKey = digest(token);
+        long now = System.currentTimeMillis();
+        CachedClaims cached = claimsCache.get(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                cacheHits.increment();
+                return cached.claims();
+            }
+            claimsCache.remove(cacheKey);
+        }
 
-    public Claims getClaims(String token) {
+        cacheMisses.increment();
+        Claims claims;
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
             throw new RuntimeException("Invalid JWT token", e);
         }
+
+        if (claims.getExpiration() != null) {
+            cacheClaims(cacheKey, new CachedClaims(claims, claims.getExpiration().getTime()), now);
+        }
+        return claims;
+    }
+
+    private void cacheClaims(String cacheKey, CachedClaims claims, long now) {
+        if (claimsCache.size() >= claimsCacheMaxSize) {
+            claimsCache.values().removeIf(entry -> entry.isExpired(now));
+            if (claimsCache.size() >= claimsCacheMaxSize) {
+                // Still full of live tokens: keep verifying this one on every call rather than grow
+                return;
+            }
+        }
+        claimsCache.put(cacheKey, claims);
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
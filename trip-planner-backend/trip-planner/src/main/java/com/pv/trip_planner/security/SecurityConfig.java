@@ -1,6 +1,9 @@
 package com.pv.trip_planner.security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -21,11 +24,15 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
     @Autowired
     private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
 
@@ -35,9 +42,45 @@ public class SecurityConfig {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    // When set, the strength is calibrated at startup to the slowest one within this latency
+    @Value("${app.security.bcrypt.target-latency-ms:0}")
+    private long bcryptTargetLatencyMs;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptTargetLatencyMs > 0 ? calibrateBCryptStrength(bcryptTargetLatencyMs) : bcryptStrength;
+        logger.info("Using BCrypt strength {}", strength);
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Measures BCrypt on this machine and returns the highest strength (4-16) whose
+     * median hash time stays within the target. Existing hashes keep working at any
+     * strength since BCrypt stores the cost in each hash.
+     */
+    private int calibrateBCryptStrength(long targetLatencyMs) {
+        int chosen = 4;
+        for (int strength = 4; strength <= 16; strength++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            encoder.encode("warm-up");
+            long[] samples = new long[3];
+            for (int i = 0; i < samples.length; i++) {
+                long start = System.nanoTime();
+                encoder.encode("calibration-password");
+                samples[i] = System.nanoTime() - start;
+            }
+            java.util.Arrays.sort(samples);
+            long medianMs = TimeUnit.NANOSECONDS.toMillis(samples[1]);
+            logger.info("BCrypt strength {} takes ~{} ms", strength, medianMs);
+            if (medianMs > targetLatencyMs) {
+                break;
+            }
+            chosen = strength;
+        }
+        return chosen;
     }
 
     @Bean
@@ -71,6 +114,8 @@ public class SecurityConfig {
         // Allow all headers including Authorization
         configuration.addAllowedHeader("*");
         configuration.addExposedHeader("Authorization");
+        configuration.addExposedHeader("X-Next-Cursor");
+        configuration.addExposedHeader("ETag");
         
         // Allow credentials (cookies, authorization headers)
         configuration.setAllowCredentials(true);
@@ -84,6 +129,8 @@ public class SecurityConfig {
         authConfiguration.addAllowedMethod("*");
         authConfiguration.addAllowedHeader("*");
         authConfiguration.addExposedHeader("Authorization");
+        authConfiguration.addExposedHeader("X-Next-Cursor");
+        authConfiguration.addExposedHeader("ETag");
         authConfiguration.setAllowCredentials(true);
         authConfiguration.setMaxAge(3600L);
         
@@ -93,7 +140,16 @@ public class SecurityConfig {
         source.registerCorsConfiguration("/api/trips/activities", authConfiguration);
         source.registerCorsConfiguration("/api/trips/itinerary", authConfiguration);
         source.registerCorsConfiguration("/api/trips/dashboard", authConfiguration);
+        source.registerCorsConfiguration("/api/trips/changes", authConfiguration);
+        source.registerCorsConfiguration("/api/trips/search", authConfiguration);
+        source.registerCorsConfiguration("/api/trips/conflicts", authConfiguration);
+        source.registerCorsConfiguration("/api/trips/calendar.ics", authConfiguration);
+        source.registerCorsConfiguration("/api/trips/calendar/subscription", authConfiguration);
         source.registerCorsConfiguration("/api/trips/*/details", authConfiguration);
+        source.registerCorsConfiguration("/api/trips/*/route", authConfiguration);
+        source.registerCorsConfiguration("/api/trips/*/calendar.ics", authConfiguration);
+        source.registerCorsConfiguration("/api/trips/*/calendar/subscription", authConfiguration);
+        source.registerCorsConfiguration("/api/geo/**", authConfiguration);
         source.registerCorsConfiguration("/api/trips/images/**", configuration);
         
         return source;
@@ -113,12 +169,25 @@ public class SecurityConfig {
                 .requestMatchers("/api/trips/activities").authenticated()
                 .requestMatchers("/api/trips/itinerary").authenticated()
                 .requestMatchers("/api/trips/dashboard").authenticated()
+                .requestMatchers("/api/trips/export").hasRole("ADMIN")
+                .requestMatchers("/api/trips/changes").authenticated()
+                .requestMatchers("/api/trips/search").authenticated()
+                .requestMatchers("/api/trips/conflicts").authenticated()
+                .requestMatchers("/api/trips/calendar.ics").authenticated()
+                .requestMatchers("/api/trips/calendar/subscription").authenticated()
                 .requestMatchers("/api/trips/{tripId}").permitAll()
                 .requestMatchers("/api/trips/{tripId}/details").authenticated()
+                .requestMatchers("/api/trips/{tripId}/route").authenticated()
+                .requestMatchers("/api/trips/{tripId}/calendar.ics").authenticated()
+                .requestMatchers("/api/trips/{tripId}/calendar/subscription").authenticated()
                 .requestMatchers("/api/trips/{tripId}/itinerary").permitAll()
                 .requestMatchers("/api/itinerary/**").permitAll()
+                .requestMatchers("/api/geo/**").authenticated()
+                .requestMatchers("/api/uploads/**").authenticated()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                 .requestMatchers("/error").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers("/api/test/roles-info").permitAll()
                 .requestMatchers("/api/test/jwt-token/{username}").permitAll()
                 .requestMatchers("/api/test/cors-test").permitAll()
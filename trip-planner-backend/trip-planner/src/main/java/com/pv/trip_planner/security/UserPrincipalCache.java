@@ -0,0 +1,92 @@
+package com.pv.trip_planner.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caches the principals JwtAuthenticationFilter resolves for each request, so an
+ * authenticated call does not need a user + roles lookup before reaching the controller.
+ *
+ * Entries must be evicted whenever a user or their roles change; the TTL only bounds
+ * staleness for changes made by other application instances.
+ */
+@Component
+public class UserPrincipalCache {
+
+    @Value("${app.security.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${app.security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CachedPrincipal> cache = new ConcurrentHashMap<>();
+
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    private record CachedPrincipal(UserDetails userDetails, long expiresAtMillis) {
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        cacheHits = Counter.builder("security.principal.cache")
+                .description("Request principals served from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        cacheMisses = Counter.builder("security.principal.cache")
+                .description("Request principals loaded from the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("security.principal.cache.size", cache, Map::size)
+                .description("Request principals currently cached")
+                .register(meterRegistry);
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = cache.get(username);
+        if (cached != null && !cached.isExpired(now)) {
+            cacheHits.increment();
+            return cached.userDetails();
+        }
+
+        cacheMisses.increment();
+        UserDetails userDetails = loader.apply(username);
+        if (cache.size() >= maxSize) {
+            cache.values().removeIf(entry -> entry.isExpired(now));
+        }
+        if (cache.size() < maxSize) {
+            cache.put(username, new CachedPrincipal(userDetails, now + ttlSeconds * 1000));
+        }
+        return userDetails;
+    }
+
+    public void evict(String username) {
+        cache.remove(username);
+    }
+
+    public void evictUser(Long userId) {
+        cache.values().removeIf(entry -> entry.userDetails() instanceof CustomUserDetails details
+                && userId.equals(details.getUserId()));
+    }
+
+    public void evictAll() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,9 @@
+package com.pv.trip_planner.services;
+
+/**
+ * Published by ScheduleService when an activity is written or deleted, inside the writing
+ * transaction; the schedule index applies it once the write commits. A null slot removes the
+ * activity (deleted, or no longer timed).
+ */
+public record ActivityChangedEvent(Long activityId, ScheduleIndex.Slot slot) {
+}
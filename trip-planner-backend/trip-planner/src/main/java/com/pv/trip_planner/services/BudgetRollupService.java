@@ -0,0 +1,171 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.entities.BudgetItem;
+import com.pv.trip_planner.repositories.BudgetCategoryTotalRepository;
+import com.pv.trip_planner.repositories.BudgetItemRepository;
+import com.pv.trip_planner.repositories.MonthlySpendRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the budget rollups (per trip, category and currency; per user, month and currency)
+ * in step with the budget items. Every item write applies its delta in the caller's
+ * transaction through atomic upserts, so totals are exact and reads never aggregate items.
+ * Totals are kept in each currency's minor units and never converted; conversion happens
+ * on read. At startup the rollups are checked against the items and rebuilt with GROUP BY
+ * when they disagree (e.g. items that predate the rollups).
+ */
+@Service
+public class BudgetRollupService implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetRollupService.class);
+
+    public static final String UNCATEGORIZED = "uncategorized";
+
+    /**
+     * What one item adds to the rollups. Taken before an edit so the old values can be
+     * subtracted after the entity has changed.
+     */
+    public record Contribution(Long tripId, String category, String currency, Long userId, LocalDate month,
+                               long amountMinor) {
+
+        public static Contribution of(BudgetItem item) {
+            return new Contribution(
+                    item.getTrip().getId(),
+                    normalizeCategory(item.getCategory()),
+                    item.getCurrency(),
+                    item.getPaidBy() != null ? item.getPaidBy().getId() : null,
+                    item.getSpentOn() != null ? item.getSpentOn().withDayOfMonth(1) : null,
+                    item.getAmountMinor() != null ? item.getAmountMinor() : 0L);
+        }
+    }
+
+    private record CategoryKey(String category, String currency) {
+    }
+
+    private record MonthKey(Long userId, LocalDate month, String currency) {
+    }
+
+    private record Delta(long amountMinor, long count) {
+        Delta plus(Delta other) {
+            return new Delta(Math.addExact(amountMinor, other.amountMinor), count + other.count);
+        }
+
+        boolean isZero() {
+            return count == 0 && amountMinor == 0;
+        }
+    }
+
+    @Autowired
+    private BudgetItemRepository budgetItemRepository;
+
+    @Autowired
+    private BudgetCategoryTotalRepository categoryTotalRepository;
+
+    @Autowired
+    private MonthlySpendRepository monthlySpendRepository;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    public static String normalizeCategory(String category) {
+        return category == null || category.isBlank() ? UNCATEGORIZED : category.trim();
+    }
+
+    /**
+     * Moves an item's contribution from {@code removed} to {@code added}; either may be null
+     * for creates and deletes. Deltas are netted per rollup row and applied in key order,
+     * so concurrent writers lock rows in the same order and can't deadlock.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Contribution removed, Contribution added) {
+        Map<CategoryKey, Delta> categoryDeltas = new TreeMap<>(
+                Comparator.comparing(CategoryKey::category).thenComparing(CategoryKey::currency));
+        Map<MonthKey, Delta> monthDeltas = new TreeMap<>(Comparator.comparing(MonthKey::userId)
+                .thenComparing(MonthKey::month).thenComparing(MonthKey::currency));
+        Long tripId = added != null ? added.tripId() : removed.tripId();
+
+        if (removed != null) {
+            collect(removed, -1, categoryDeltas, monthDeltas);
+        }
+        if (added != null) {
+            collect(added, 1, categoryDeltas, monthDeltas);
+        }
+
+        boolean shrunk = false;
+        for (Map.Entry<CategoryKey, Delta> entry : categoryDeltas.entrySet()) {
+            Delta delta = entry.getValue();
+            if (!delta.isZero()) {
+                categoryTotalRepository.addDelta(tripId, entry.getKey().category(), entry.getKey().currency(),
+                        delta.amountMinor(), delta.count());
+                shrunk |= delta.count() < 0;
+            }
+        }
+        if (shrunk) {
+            categoryTotalRepository.deleteEmpty(tripId);
+        }
+
+        for (Map.Entry<MonthKey, Delta> entry : monthDeltas.entrySet()) {
+            Delta delta = entry.getValue();
+            if (!delta.isZero()) {
+                monthlySpendRepository.addDelta(entry.getKey().userId(), entry.getKey().month(),
+                        entry.getKey().currency(), delta.amountMinor(), delta.count());
+                if (delta.count() < 0) {
+                    monthlySpendRepository.deleteEmpty(entry.getKey().userId());
+                }
+            }
+        }
+    }
+
+    private static void collect(Contribution contribution, int sign, Map<CategoryKey, Delta> categoryDeltas,
+                                Map<MonthKey, Delta> monthDeltas) {
+        Delta delta = new Delta(sign < 0 ? Math.negateExact(contribution.amountMinor()) : contribution.amountMinor(),
+                sign);
+        categoryDeltas.merge(new CategoryKey(contribution.category(), contribution.currency()), delta, Delta::plus);
+        // Items without a payer or date only count towards the trip
+        if (contribution.userId() != null && contribution.month() != null) {
+            monthDeltas.merge(new MonthKey(contribution.userId(), contribution.month(), contribution.currency()),
+                    delta, Delta::plus);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        String defaultCurrency = exchangeRateService.getDefaultCurrency();
+        int digits = RateSnapshot.minorDigits(defaultCurrency);
+        // Stored money is never rounded, the same rule item writes follow; the operator has to pick
+        // a default currency the old amounts fit
+        long finer = budgetItemRepository.countLegacyFinerThan(digits);
+        if (finer > 0) {
+            throw new IllegalStateException(finer + " budget items without a currency have more decimals than "
+                    + defaultCurrency + " allows (" + digits + "); set app.budget.default-currency to their currency");
+        }
+        int legacy = budgetItemRepository.assignLegacyCurrency(defaultCurrency, digits, BigDecimal.TEN.pow(digits));
+        if (legacy > 0) {
+            logger.info("Assigned {} to {} budget items without a currency", defaultCurrency, legacy);
+        }
+
+        if (legacy > 0 || categoryTotalRepository.countRolledUpItems() != budgetItemRepository.count()) {
+            categoryTotalRepository.deleteAllInBatch();
+            int rows = categoryTotalRepository.rebuildFromItems();
+            logger.info("Rebuilt budget category totals ({} rows)", rows);
+        }
+        if (legacy > 0 || monthlySpendRepository.countRolledUpItems() != budgetItemRepository.countAttributed()) {
+            monthlySpendRepository.deleteAllInBatch();
+            int rows = monthlySpendRepository.rebuildFromItems();
+            logger.info("Rebuilt monthly spend rollups ({} rows)", rows);
+        }
+    }
+}
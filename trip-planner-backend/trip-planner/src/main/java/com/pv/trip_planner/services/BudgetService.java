@@ -0,0 +1,317 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.BudgetCategoryTotalDto;
+import com.pv.trip_planner.dto.BudgetItemDto;
+import com.pv.trip_planner.dto.BudgetItemRequest;
+import com.pv.trip_planner.dto.BudgetSummaryDto;
+import com.pv.trip_planner.dto.CurrencyTotalDto;
+import com.pv.trip_planner.dto.ExchangeRatesDto;
+import com.pv.trip_planner.dto.MonthlySpendDto;
+import com.pv.trip_planner.entities.BudgetCategoryTotal;
+import com.pv.trip_planner.entities.BudgetItem;
+import com.pv.trip_planner.entities.ChangeLogEntry.ChangeType;
+import com.pv.trip_planner.entities.ChangeLogEntry.EntityType;
+import com.pv.trip_planner.entities.MonthlySpend;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.repositories.BudgetCategoryTotalRepository;
+import com.pv.trip_planner.repositories.BudgetItemRepository;
+import com.pv.trip_planner.repositories.MonthlySpendRepository;
+import com.pv.trip_planner.repositories.TripRepository;
+import com.pv.trip_planner.repositories.UserRepository;
+import com.pv.trip_planner.security.SecurityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Budget items of a trip and the totals derived from them. Totals are read from the rollups
+ * maintained by BudgetRollupService, never summed over the items, and converted into the
+ * requested currency with one rate snapshot per request: each per-currency total in minor
+ * units is converted once.
+ */
+@Service
+public class BudgetService {
+
+    // Amounts are stored with two decimals, so currencies with finer minor units can't be recorded
+    private static final int AMOUNT_SCALE = 2;
+
+    @Autowired
+    private BudgetItemRepository budgetItemRepository;
+
+    @Autowired
+    private BudgetCategoryTotalRepository categoryTotalRepository;
+
+    @Autowired
+    private MonthlySpendRepository monthlySpendRepository;
+
+    @Autowired
+    private BudgetRollupService budgetRollupService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ExchangeRateService exchangeRateService;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Transactional(readOnly = true)
+    public List<BudgetItemDto> getItems(Long tripId) {
+        requireTripAccess(tripId);
+        return budgetItemRepository.findByTripId(tripId).stream()
+                .map(BudgetItemDto::fromBudgetItem)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public BudgetItemDto addItem(Long tripId, BudgetItemRequest request) {
+        User currentUser = requireTripAccess(tripId);
+        if (request.getAmount() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "amount is required");
+        }
+
+        String currency = request.getCurrency() != null
+                ? normalizeCurrency(request.getCurrency())
+                : exchangeRateService.getDefaultCurrency();
+        BigDecimal amount = normalizeAmount(request.getAmount(), currency);
+
+        BudgetItem item = BudgetItem.builder()
+                .description(request.getDescription())
+                .amount(amount)
+                .currency(currency)
+                .amountMinor(RateSnapshot.toMinor(amount, currency))
+                .category(BudgetRollupService.normalizeCategory(request.getCategory()))
+                .spentOn(request.getSpentOn() != null ? request.getSpentOn() : LocalDate.now())
+                .paidBy(payer(tripId, request.getPaidByUserId(), currentUser))
+                .trip(tripRepository.getReferenceById(tripId))
+                .build();
+        budgetItemRepository.save(item);
+
+        budgetRollupService.apply(null, BudgetRollupService.Contribution.of(item));
+        changeFeedService.record(tripId, EntityType.BUDGET_ITEM, item.getId(), tripId, ChangeType.UPSERT);
+        return BudgetItemDto.fromBudgetItem(item);
+    }
+
+    @Transactional
+    public BudgetItemDto updateItem(Long tripId, Long itemId, BudgetItemRequest request) {
+        User currentUser = requireTripAccess(tripId);
+        BudgetItem item = budgetItemRepository.findInTripForUpdate(itemId, tripId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Budget item not found"));
+        BudgetRollupService.Contribution before = BudgetRollupService.Contribution.of(item);
+
+        if (request.getDescription() != null) {
+            item.setDescription(request.getDescription());
+        }
+        if (request.getAmount() != null || request.getCurrency() != null) {
+            // A new currency re-checks the old amount against its minor units
+            String currency = request.getCurrency() != null
+                    ? normalizeCurrency(request.getCurrency())
+                    : item.getCurrency();
+            BigDecimal amount = normalizeAmount(
+                    request.getAmount() != null ? request.getAmount() : item.getAmount(), currency);
+            item.setAmount(amount);
+            item.setCurrency(currency);
+            item.setAmountMinor(RateSnapshot.toMinor(amount, currency));
+        }
+        if (request.getCategory() != null) {
+            item.setCategory(BudgetRollupService.normalizeCategory(request.getCategory()));
+        }
+        if (request.getSpentOn() != null) {
+            item.setSpentOn(request.getSpentOn());
+        }
+        if (request.getPaidByUserId() != null) {
+            item.setPaidBy(payer(tripId, request.getPaidByUserId(), currentUser));
+        }
+
+        budgetRollupService.apply(before, BudgetRollupService.Contribution.of(item));
+        changeFeedService.record(tripId, EntityType.BUDGET_ITEM, itemId, tripId, ChangeType.UPSERT);
+        return BudgetItemDto.fromBudgetItem(item);
+    }
+
+    @Transactional
+    public void deleteItem(Long tripId, Long itemId) {
+        requireTripAccess(tripId);
+        BudgetItem item = budgetItemRepository.findInTripForUpdate(itemId, tripId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Budget item not found"));
+
+        budgetRollupService.apply(BudgetRollupService.Contribution.of(item), null);
+        budgetItemRepository.delete(item);
+        changeFeedService.record(tripId, EntityType.BUDGET_ITEM, itemId, tripId, ChangeType.DELETE);
+    }
+
+    /**
+     * Reads one rollup row per category and currency, however many items the trip has. The
+     * trip total converts each currency's total once; category totals convert their own
+     * rows, so they can differ from the trip total by rounding.
+     */
+    @Transactional(readOnly = true)
+    public BudgetSummaryDto getSummary(Long tripId, String currency) {
+        requireTripAccess(tripId);
+        RateSnapshot rates = exchangeRateService.current();
+        String target = currency != null ? normalizeCurrency(currency, rates) : exchangeRateService.getDefaultCurrency();
+        List<BudgetCategoryTotal> totals = categoryTotalRepository.findByTripIdOrderByCategoryAscCurrencyAsc(tripId);
+
+        Map<String, long[]> byCurrency = new TreeMap<>();
+        Map<String, long[]> byCategory = new LinkedHashMap<>();
+        for (BudgetCategoryTotal row : totals) {
+            add(byCurrency.computeIfAbsent(row.getCurrency(), key -> new long[2]), row.getTotalMinor(),
+                    row.getItemCount());
+            add(byCategory.computeIfAbsent(row.getCategory(), key -> new long[2]),
+                    rates.convertMinor(row.getTotalMinor(), row.getCurrency(), target), row.getItemCount());
+        }
+
+        long totalMinor = 0;
+        long itemCount = 0;
+        List<CurrencyTotalDto> totalsByCurrency = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : byCurrency.entrySet()) {
+            long[] sum = entry.getValue();
+            totalMinor = Math.addExact(totalMinor, rates.convertMinor(sum[0], entry.getKey(), target));
+            itemCount += sum[1];
+            totalsByCurrency.add(CurrencyTotalDto.builder()
+                    .currency(entry.getKey())
+                    .total(RateSnapshot.fromMinor(sum[0], entry.getKey()))
+                    .itemCount(sum[1])
+                    .build());
+        }
+
+        return BudgetSummaryDto.builder()
+                .tripId(tripId)
+                .currency(target)
+                .ratesAsOf(rates.getAsOf())
+                .total(RateSnapshot.fromMinor(totalMinor, target))
+                .itemCount(itemCount)
+                .categories(byCategory.entrySet().stream()
+                        .map(entry -> BudgetCategoryTotalDto.builder()
+                                .category(entry.getKey())
+                                .total(RateSnapshot.fromMinor(entry.getValue()[0], target))
+                                .itemCount(entry.getValue()[1])
+                                .build())
+                        .collect(Collectors.toList()))
+                .totalsByCurrency(totalsByCurrency)
+                .build();
+    }
+
+    public ExchangeRatesDto getRates() {
+        return ExchangeRatesDto.fromSnapshot(exchangeRateService.current(), exchangeRateService.getDefaultCurrency());
+    }
+
+    /**
+     * What each user paid per month across all trips, converted into {@code currency}. Users
+     * see their own spend; admins may ask for any user, or all users when userId is omitted.
+     */
+    @Transactional(readOnly = true)
+    public List<MonthlySpendDto> getMonthlySpend(Long userId, YearMonth from, YearMonth to, String currency) {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        Long effectiveUserId = userId;
+        if (!securityUtils.isAdmin(currentUser)) {
+            if (userId != null && !userId.equals(currentUser.getId())) {
+                throw new RuntimeException("Access denied: You can only view your own spending");
+            }
+            effectiveUserId = currentUser.getId();
+        }
+
+        RateSnapshot rates = exchangeRateService.current();
+        String target = currency != null ? normalizeCurrency(currency, rates) : exchangeRateService.getDefaultCurrency();
+
+        // Rows come ordered by user and month, one per currency
+        List<MonthlySpendDto> result = new ArrayList<>();
+        MonthlySpendDto current = null;
+        long totalMinor = 0;
+        for (MonthlySpend row : monthlySpendRepository.findInRange(effectiveUserId,
+                from != null ? from.atDay(1) : null, to != null ? to.atDay(1) : null)) {
+            YearMonth month = YearMonth.from(row.getMonth());
+            if (current == null || !current.getUserId().equals(row.getUserId()) || !current.getMonth().equals(month)) {
+                if (current != null) {
+                    current.setTotal(RateSnapshot.fromMinor(totalMinor, target));
+                }
+                current = MonthlySpendDto.builder().userId(row.getUserId()).month(month).currency(target).build();
+                result.add(current);
+                totalMinor = 0;
+            }
+            totalMinor = Math.addExact(totalMinor, rates.convertMinor(row.getTotalMinor(), row.getCurrency(), target));
+            current.setItemCount(current.getItemCount() + row.getItemCount());
+        }
+        if (current != null) {
+            current.setTotal(RateSnapshot.fromMinor(totalMinor, target));
+        }
+        return result;
+    }
+
+    private User requireTripAccess(Long tripId) {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        tripService.checkTripAccess(currentUser, tripId);
+        return currentUser;
+    }
+
+    // The current user by default; anyone else has to be on the trip
+    private User payer(Long tripId, Long userId, User currentUser) {
+        if (userId == null || userId.equals(currentUser.getId())) {
+            return userRepository.getReferenceById(currentUser.getId());
+        }
+        if (!tripRepository.isAccessibleBy(tripId, userId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "paidByUserId must be the trip owner or a collaborator");
+        }
+        return userRepository.getReferenceById(userId);
+    }
+
+    private static void add(long[] sum, long amountMinor, long itemCount) {
+        sum[0] = Math.addExact(sum[0], amountMinor);
+        sum[1] += itemCount;
+    }
+
+    private String normalizeCurrency(String currency) {
+        return normalizeCurrency(currency, exchangeRateService.current());
+    }
+
+    private static String normalizeCurrency(String currency, RateSnapshot rates) {
+        String code = currency.trim().toUpperCase(Locale.ROOT);
+        if (!rates.supports(code) || RateSnapshot.minorDigits(code) > AMOUNT_SCALE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported currency: " + currency);
+        }
+        return code;
+    }
+
+    // Scaled to the currency's minor units: 12.5 EUR becomes 12.50, 1200.5 JPY is rejected
+    private static BigDecimal normalizeAmount(BigDecimal amount, String currency) {
+        int digits = RateSnapshot.minorDigits(currency);
+        try {
+            BigDecimal scaled = amount.setScale(digits, RoundingMode.UNNECESSARY);
+            RateSnapshot.toMinor(scaled, currency);
+            return scaled;
+        } catch (ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "amount must have at most " + digits + " decimal places for " + currency);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * What calendar feeds need to answer a poll without the database: each trip's version and
+ * members, and the trip's rendered events for that version once a feed has asked for them.
+ * A new version of a trip replaces its entry and so drops its events; the events of all
+ * trips together are kept within a byte budget, past which they are rendered per request.
+ */
+public class CalendarFeedIndex {
+
+    public record Feed(Long tripId, String title, long version, Set<Long> memberIds) {
+
+        // Built from a trip whose owner and collaborators are loaded
+        public static Feed of(Trip trip) {
+            Set<Long> memberIds = new HashSet<>();
+            memberIds.add(trip.getOwner().getId());
+            if (trip.getCollaborators() != null) {
+                for (User collaborator : trip.getCollaborators()) {
+                    memberIds.add(collaborator.getId());
+                }
+            }
+            return new Feed(trip.getId(), trip.getTitle(), trip.getVersion() != null ? trip.getVersion() : 0L,
+                    Set.copyOf(memberIds));
+        }
+    }
+
+    // A trip's feed with its cached events, or null events if they haven't been rendered
+    public record Cached(Feed feed, byte[] events) {
+    }
+
+    // Mutable state of one trip, guarded by the index lock
+    private static final class Entry {
+        final Feed feed;
+        byte[] events;
+
+        Entry(Feed feed) {
+            this.feed = feed;
+        }
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<Long, Set<Long>> tripsByMember = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long maxCachedBytes;
+    private long cachedBytes;
+
+    public CalendarFeedIndex(long maxCachedBytes) {
+        this.maxCachedBytes = maxCachedBytes;
+    }
+
+    /**
+     * Adds or replaces the trip's feed, unless the index already holds a newer version. The
+     * events rendered for the same version are kept.
+     */
+    public boolean put(Feed feed) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.get(feed.tripId());
+            Entry entry = new Entry(feed);
+            if (existing != null) {
+                if (existing.feed.version() > feed.version()) {
+                    return false;
+                }
+                if (existing.feed.version() == feed.version()) {
+                    entry.events = existing.events;
+                } else {
+                    uncache(existing);
+                }
+                unindex(existing);
+            }
+            entries.put(feed.tripId(), entry);
+            for (Long memberId : feed.memberIds()) {
+                tripsByMember.computeIfAbsent(memberId, key -> new TreeSet<>()).add(feed.tripId());
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long tripId) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.remove(tripId);
+            if (existing != null) {
+                uncache(existing);
+                unindex(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Cached get(Long tripId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(tripId);
+            return entry != null ? new Cached(entry.feed, entry.events) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The member's trips in id order
+    public List<Cached> tripsOf(Long memberId) {
+        lock.readLock().lock();
+        try {
+            Set<Long> tripIds = tripsByMember.get(memberId);
+            if (tripIds == null) {
+                return List.of();
+            }
+            List<Cached> trips = new ArrayList<>(tripIds.size());
+            for (Long tripId : tripIds) {
+                Entry entry = entries.get(tripId);
+                trips.add(new Cached(entry.feed, entry.events));
+            }
+            return trips;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps the events rendered for a version of the trip, if the index still holds that
+     * version and they fit in the budget. The array must not be changed afterwards.
+     */
+    public boolean cache(Long tripId, long version, byte[] events) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(tripId);
+            if (entry == null || entry.feed.version() != version || entry.events != null
+                    || cachedBytes + events.length > maxCachedBytes) {
+                return false;
+            }
+            entry.events = events;
+            cachedBytes += events.length;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long cachedBytes() {
+        lock.readLock().lock();
+        try {
+            return cachedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void uncache(Entry entry) {
+        if (entry.events != null) {
+            cachedBytes -= entry.events.length;
+            entry.events = null;
+        }
+    }
+
+    private void unindex(Entry entry) {
+        for (Long memberId : entry.feed.memberIds()) {
+            Set<Long> trips = tripsByMember.get(memberId);
+            if (trips != null) {
+                trips.remove(entry.feed.tripId());
+                if (trips.isEmpty()) {
+                    tripsByMember.remove(memberId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.CalendarSubscriptionDto;
+import com.pv.trip_planner.dto.TripInclude;
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.repositories.TripRepository;
+import com.pv.trip_planner.security.SecurityUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * iCalendar (.ics) feeds of a trip's itinerary, or of every trip a user owns or collaborates
+ * on: an all-day event per dated itinerary item and an event per activity on that date.
+ *
+ * Feeds are polled by calendar apps, so a poll is answered from CalendarFeedIndex: the ETag
+ * is the trip version (for a user, a hash of all their trips' versions) and an unchanged
+ * feed gets a 304 without touching the database. Each trip's events are rendered once per
+ * version and kept; a feed is written as header, cached events, footer straight to the
+ * response. Subscribe URLs carry a signed token instead of a JWT, since calendar apps can't
+ * log in; a token only works while its user is still on the trip.
+ */
+@Service
+public class CalendarService implements TripIndex {
+
+    private static final String ALL_TRIPS = "all";
+    private static final String CONTENT_TYPE = "text/calendar;charset=UTF-8";
+    // Revalidated on every poll, which costs the client a 304 when nothing changed
+    private static final String CACHE_CONTROL = "private, no-cache";
+    private static final String PRODUCT_ID = "-//Trip Planner//Itineraries//EN";
+    private static final String UID_DOMAIN = "@trip-planner";
+    // Signatures are truncated to 128 bits, plenty for a MAC that can't be checked offline
+    private static final int SIGNATURE_BYTES = 16;
+
+    private static final Comparator<ItineraryItem> BY_DATE = Comparator
+            .comparing(ItineraryItem::getStartDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ItineraryItem::getId);
+
+    private static final Comparator<Activity> BY_START_TIME = Comparator
+            .comparing(Activity::getStartTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Activity::getId);
+
+    // Who a feed token was issued to, and for which trip (null for all of the user's trips)
+    private record FeedToken(Long userId, Long tripId) {
+    }
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripGraphLoader tripGraphLoader;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Changing the secret revokes every subscribe URL handed out
+    @Value("${app.calendar.feed-secret:${jwt.secret}}")
+    private String feedSecret;
+
+    @Value("${app.calendar.cache-budget-mb:64}")
+    private long cacheBudgetMb;
+
+    // Suggested to calendar apps as their polling interval; many use their own
+    @Value("${app.calendar.refresh-interval-minutes:30}")
+    private int refreshIntervalMinutes;
+
+    private CalendarFeedIndex index;
+    private SecretKeySpec signingKey;
+    private ThreadLocal<Mac> macs;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        index = new CalendarFeedIndex(cacheBudgetMb * 1024 * 1024);
+        signingKey = new SecretKeySpec(feedSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(signingKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void put(Trip trip) {
+        index.put(CalendarFeedIndex.Feed.of(trip));
+    }
+
+    @Override
+    public void remove(Long tripId) {
+        index.remove(tripId);
+    }
+
+    /**
+     * Subscribe URL for one trip. Only the trip's owner and collaborators get one, since the
+     * feed checks membership; admins can still download the trip's calendar.
+     */
+    public CalendarSubscriptionDto getTripSubscription(Long tripId) {
+        User currentUser = requireUser();
+        if (!tripRepository.isAccessibleBy(tripId, currentUser.getId())) {
+            tripService.checkTripAccess(currentUser, tripId);
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Calendar subscriptions are for the trip's owner and collaborators");
+        }
+        return subscription(currentUser.getId(), tripId);
+    }
+
+    // Subscribe URL for all the trips the current user owns or collaborates on
+    public CalendarSubscriptionDto getUserSubscription() {
+        return subscription(requireUser().getId(), null);
+    }
+
+    public void writeTripCalendar(Long tripId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        User currentUser = requireUser();
+        tripService.checkTripAccess(currentUser, tripId);
+        writeTrip(tripId, index.get(tripId), true, request, response);
+    }
+
+    public void writeUserCalendar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeUser(requireUser().getId(), true, request, response);
+    }
+
+    /**
+     * The feed behind a subscribe URL. Tokens that don't verify, and trips the user has left,
+     * are answered like a missing feed.
+     */
+    public void writeFeed(String token, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        FeedToken feedToken = parseToken(token);
+        if (feedToken == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Calendar not found");
+        }
+        if (feedToken.tripId() == null) {
+            writeUser(feedToken.userId(), false, request, response);
+            return;
+        }
+        CalendarFeedIndex.Cached cached = index.get(feedToken.tripId());
+        if (cached == null || !cached.feed().memberIds().contains(feedToken.userId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Calendar not found");
+        }
+        writeTrip(feedToken.tripId(), cached, false, request, response);
+    }
+
+    // A trip not in the index yet (just created) is rendered from the database, without ETag or caching
+    private void writeTrip(Long tripId, CalendarFeedIndex.Cached cached, boolean download,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (cached != null && notModified("W/\"ics-trip-" + tripId + "-v" + cached.feed().version() + "\"",
+                request, response)) {
+            return;
+        }
+        byte[] events = cached != null ? cached.events() : null;
+        String title = cached != null ? cached.feed().title() : null;
+        if (events == null) {
+            Map<Long, Rendered> rendered = render(List.of(tripId));
+            if (!rendered.containsKey(tripId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Trip not found");
+            }
+            events = rendered.get(tripId).events();
+            title = rendered.get(tripId).title();
+        }
+        write(title, List.of(events), "trip-" + tripId + ".ics", download, response);
+    }
+
+    private void writeUser(Long userId, boolean download, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        List<CalendarFeedIndex.Cached> trips = index.tripsOf(userId);
+        if (notModified(userETag(userId, trips), request, response)) {
+            return;
+        }
+        List<Long> missing = trips.stream()
+                .filter(trip -> trip.events() == null)
+                .map(trip -> trip.feed().tripId())
+                .toList();
+        Map<Long, Rendered> rendered = missing.isEmpty() ? Map.of() : render(missing);
+
+        List<byte[]> events = new ArrayList<>(trips.size());
+        for (CalendarFeedIndex.Cached trip : trips) {
+            if (trip.events() != null) {
+                events.add(trip.events());
+            } else if (rendered.containsKey(trip.feed().tripId())) {
+                events.add(rendered.get(trip.feed().tripId()).events());
+            }
+        }
+        write("Trip Planner", events, "trips.ics", download, response);
+    }
+
+    // Sets the ETag and cache headers; true when the client's copy is current and a 304 was sent
+    private static boolean notModified(String etag, HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    // Changes whenever one of the user's trips changes, or a trip is added or removed
+    private static String userETag(Long userId, List<CalendarFeedIndex.Cached> trips) {
+        long hash = trips.size();
+        for (CalendarFeedIndex.Cached trip : trips) {
+            hash = mix(hash ^ trip.feed().tripId());
+            hash = mix(hash ^ trip.feed().version());
+        }
+        return "W/\"ics-user-" + userId + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private void write(String name, List<byte[]> events, String filename, boolean download,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                (download ? ContentDisposition.attachment() : ContentDisposition.inline())
+                        .filename(filename).build().toString());
+        OutputStream out = response.getOutputStream();
+        IcsWriter ics = new IcsWriter(out);
+        ics.begin("VCALENDAR");
+        ics.value("VERSION", "2.0");
+        ics.value("PRODID", PRODUCT_ID);
+        ics.value("CALSCALE", "GREGORIAN");
+        ics.value("METHOD", "PUBLISH");
+        ics.text("X-WR-CALNAME", name);
+        ics.value("REFRESH-INTERVAL;VALUE=DURATION", "PT" + refreshIntervalMinutes + "M");
+        ics.value("X-PUBLISHED-TTL", "PT" + refreshIntervalMinutes + "M");
+        for (byte[] tripEvents : events) {
+            out.write(tripEvents);
+        }
+        ics.end("VCALENDAR");
+    }
+
+    private record Rendered(String title, byte[] events) {
+    }
+
+    /**
+     * Renders the events of the trips found, in one read-only transaction, and keeps them
+     * in the index when it holds the version that was read.
+     */
+    private Map<Long, Rendered> render(Collection<Long> tripIds) {
+        Map<Long, Rendered> rendered = readOnlyTransaction.execute(status -> {
+            List<Trip> trips = tripGraphLoader.loadGraph(tripRepository.findAllWithOwnerByIdIn(tripIds),
+                    EnumSet.of(TripInclude.ITINERARY));
+            Instant stamp = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            Map<Long, Rendered> byTrip = new HashMap<>();
+            for (Trip trip : trips) {
+                byte[] events = renderEvents(trip, stamp);
+                index.cache(trip.getId(), trip.getVersion() != null ? trip.getVersion() : 0L, events);
+                byTrip.put(trip.getId(), new Rendered(trip.getTitle(), events));
+            }
+            return byTrip;
+        });
+        return rendered != null ? rendered : Map.of();
+    }
+
+    // Undated items, and their activities, have no place on a calendar and are left out
+    private static byte[] renderEvents(Trip trip, Instant stamp) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        IcsWriter ics = new IcsWriter(buffer);
+        try {
+            List<ItineraryItem> items = trip.getItinerary() != null
+                    ? trip.getItinerary().stream().sorted(BY_DATE).toList()
+                    : List.of();
+            for (ItineraryItem item : items) {
+                LocalDate date = item.getStartDate();
+                if (date == null) {
+                    continue;
+                }
+                LocalDate endDate = item.getEndDate() != null && !item.getEndDate().isBefore(date)
+                        ? item.getEndDate() : date;
+                ics.begin("VEVENT");
+                ics.value("UID", "itinerary-item-" + item.getId() + UID_DOMAIN);
+                ics.utc("DTSTAMP", stamp);
+                // All-day DTEND is exclusive
+                ics.date("DTSTART", date);
+                ics.date("DTEND", endDate.plusDays(1));
+                ics.text("SUMMARY", item.getTitle());
+                ics.text("DESCRIPTION", item.getDescription());
+                ics.text("LOCATION", item.getLocation());
+                geo(ics, item.getLatitude(), item.getLongitude());
+                ics.text("CATEGORIES", trip.getTitle());
+                // Day plans shouldn't show the user as busy all day
+                ics.value("TRANSP", "TRANSPARENT");
+                ics.end("VEVENT");
+
+                if (item.getActivities() == null) {
+                    continue;
+                }
+                for (Activity activity : item.getActivities().stream().sorted(BY_START_TIME).toList()) {
+                    renderActivity(ics, trip, date, activity, stamp);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    // Same times as the schedule: an end before the start runs past midnight, no end is an instant
+    private static void renderActivity(IcsWriter ics, Trip trip, LocalDate date, Activity activity, Instant stamp)
+            throws IOException {
+        ics.begin("VEVENT");
+        ics.value("UID", "activity-" + activity.getId() + UID_DOMAIN);
+        ics.utc("DTSTAMP", stamp);
+        if (activity.getStartTime() == null) {
+            ics.date("DTSTART", date);
+            ics.date("DTEND", date.plusDays(1));
+        } else {
+            ics.dateTime("DTSTART", LocalDateTime.of(date, activity.getStartTime()));
+            if (activity.getEndTime() != null) {
+                LocalDate endDate = activity.getEndTime().isBefore(activity.getStartTime()) ? date.plusDays(1) : date;
+                ics.dateTime("DTEND", LocalDateTime.of(endDate, activity.getEndTime()));
+            }
+        }
+        ics.text("SUMMARY", activity.getTitle());
+        ics.text("DESCRIPTION", activity.getDescription());
+        ics.text("LOCATION", activity.getLocation());
+        geo(ics, activity.getLatitude(), activity.getLongitude());
+        ics.text("CATEGORIES", trip.getTitle());
+        ics.end("VEVENT");
+    }
+
+    private static void geo(IcsWriter ics, Double latitude, Double longitude) throws IOException {
+        if (latitude != null && longitude != null) {
+            ics.value("GEO", String.format(Locale.ROOT, "%.6f;%.6f", latitude, longitude));
+        }
+    }
+
+    private CalendarSubscriptionDto subscription(Long userId, Long tripId) {
+        String url = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/public/calendar/{token}.ics")
+                .buildAndExpand(feedToken(userId, tripId))
+                .toUriString();
+        return CalendarSubscriptionDto.builder()
+                .tripId(tripId)
+                .url(url)
+                .webcalUrl(url.replaceFirst("^https?:", "webcal:"))
+                .build();
+    }
+
+    // <userId>-<tripId or "all">-<signature>
+    private String feedToken(Long userId, Long tripId) {
+        String payload = userId + "-" + (tripId != null ? tripId : ALL_TRIPS);
+        return payload + "-" + HexFormat.of().formatHex(sign(payload));
+    }
+
+    private FeedToken parseToken(String token) {
+        String[] parts = token.split("-");
+        if (parts.length != 3) {
+            return null;
+        }
+        byte[] signature;
+        Long userId;
+        Long tripId;
+        try {
+            signature = HexFormat.of().parseHex(parts[2]);
+            userId = Long.valueOf(parts[0]);
+            tripId = ALL_TRIPS.equals(parts[1]) ? null : Long.valueOf(parts[1]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        // Compared in constant time, so response timing doesn't reveal a valid prefix
+        if (!MessageDigest.isEqual(signature, sign(parts[0] + "-" + parts[1]))) {
+            return null;
+        }
+        return new FeedToken(userId, tripId);
+    }
+
+    private byte[] sign(String payload) {
+        Mac mac = macs.get();
+        byte[] signature = mac.doFinal(("calendar-feed:" + payload).getBytes(StandardCharsets.UTF_8));
+        byte[] truncated = new byte[SIGNATURE_BYTES];
+        System.arraycopy(signature, 0, truncated, 0, SIGNATURE_BYTES);
+        return truncated;
+    }
+
+    private User requireUser() {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        return currentUser;
+    }
+}
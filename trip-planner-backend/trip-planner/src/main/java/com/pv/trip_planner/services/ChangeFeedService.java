@@ -0,0 +1,229 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.ActivityResponseDto;
+import com.pv.trip_planner.dto.BudgetItemDto;
+import com.pv.trip_planner.dto.ItineraryItemResponseDto;
+import com.pv.trip_planner.dto.TripChangeDto;
+import com.pv.trip_planner.dto.TripChangesDto;
+import com.pv.trip_planner.dto.TripResponseDto;
+import com.pv.trip_planner.entities.ChangeLogEntry;
+import com.pv.trip_planner.entities.ChangeLogEntry.ChangeType;
+import com.pv.trip_planner.entities.ChangeLogEntry.EntityType;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.repositories.ActivityRepository;
+import com.pv.trip_planner.repositories.BudgetItemRepository;
+import com.pv.trip_planner.repositories.ChangeLogRepository;
+import com.pv.trip_planner.repositories.ItineraryRepository;
+import com.pv.trip_planner.repositories.TripRepository;
+import com.pv.trip_planner.security.SecurityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Records writes to trips, itinerary items, activities and budget items in an indexed change log and bumps
+ * the trip's version counter, so clients can sync deltas instead of re-fetching whole trips.
+ */
+@Service
+public class ChangeFeedService {
+
+    public record Change(EntityType entityType, Long entityId, Long parentId, ChangeType changeType) {
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO trip_change_log"
+            + " (id, trip_id, entity_type, entity_id, parent_id, change_type, changed_at)"
+            + " VALUES (nextval('trip_change_log_seq'), ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ItineraryRepository itineraryRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private BudgetItemRepository budgetItemRepository;
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.trips.changes.max-entries:1000}")
+    private int maxEntries;
+
+    // Entries younger than this are held back, so a transaction that took a lower id but
+    // commits later can't be skipped by a client that already moved its token past it.
+    // changedAt is the application's clock when the entry is written, not the commit time:
+    // a transaction that commits more than this after writing its entries can still be missed
+    @Value("${app.trips.changes.settle-ms:2000}")
+    private long settleMillis;
+
+    @Value("${app.trips.changes.retention-days:30}")
+    private long retentionDays;
+
+    @Transactional
+    public void record(Long tripId, EntityType entityType, Long entityId, Long parentId, ChangeType changeType) {
+        recordAll(tripId, List.of(new Change(entityType, entityId, parentId, changeType)));
+    }
+
+    /**
+     * Appends the changes to the log in one JDBC batch, bumps the trip's version once and
+     * publishes a TripChangedEvent. Joins the caller's transaction, so the log commits
+     * together with the write itself.
+     */
+    @Transactional
+    public void recordAll(Long tripId, List<Change> changes) {
+        if (tripId == null || changes.isEmpty()) {
+            return;
+        }
+
+        tripRepository.incrementVersion(tripId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, changes, changes.size(), (statement, change) -> {
+            statement.setLong(1, tripId);
+            statement.setString(2, change.entityType().name());
+            statement.setLong(3, change.entityId());
+            statement.setObject(4, change.parentId());
+            statement.setString(5, change.changeType().name());
+            statement.setTimestamp(6, now);
+        });
+        eventPublisher.publishEvent(new TripChangedEvent(tripId));
+    }
+
+    /**
+     * Returns what changed on the user's trips after the given token. Several changes to the
+     * same entity collapse into its latest state; deletes carry no data. Without a token only
+     * the current token is returned, for clients that have just done a full load. Every token
+     * handed out stops before the first entry younger than the settle window, including the
+     * initial one and the one returned with a resync.
+     */
+    @Transactional(readOnly = true)
+    public TripChangesDto getChangesForCurrentUser(Long since) {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+
+        LocalDateTime settled = LocalDateTime.now().minusNanos(settleMillis * 1_000_000);
+        if (since == null) {
+            return TripChangesDto.builder()
+                    .token(changeLogRepository.findSettledId(settled))
+                    .changes(List.of())
+                    .build();
+        }
+
+        // Older entries have been pruned: the client can't be brought up to date incrementally
+        Long oldestId = changeLogRepository.findOldestId();
+        if (oldestId != null && since < oldestId - 1 && oldestId > 1) {
+            return TripChangesDto.builder()
+                    .token(changeLogRepository.findSettledId(settled))
+                    .changes(List.of())
+                    .resyncRequired(true)
+                    .build();
+        }
+
+        List<ChangeLogEntry> entries = securityUtils.isAdmin(currentUser)
+                ? changeLogRepository.findSince(since, Limit.of(maxEntries + 1))
+                : changeLogRepository.findSinceForUser(since, currentUser.getId(), Limit.of(maxEntries + 1));
+
+        boolean hasMore = entries.size() > maxEntries;
+        long token = since;
+        Map<String, ChangeLogEntry> latest = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : entries.subList(0, Math.min(entries.size(), maxEntries))) {
+            if (entry.getChangedAt().isAfter(settled)) {
+                hasMore = true;
+                break;
+            }
+            latest.remove(entry.getEntityType() + ":" + entry.getEntityId());
+            latest.put(entry.getEntityType() + ":" + entry.getEntityId(), entry);
+            token = entry.getId();
+        }
+
+        return TripChangesDto.builder()
+                .token(token)
+                .hasMore(hasMore)
+                .changes(toChanges(latest.values()))
+                .build();
+    }
+
+    private List<TripChangeDto> toChanges(Collection<ChangeLogEntry> entries) {
+        Map<Long, TripResponseDto> trips = load(entries, EntityType.TRIP,
+                ids -> tripRepository.findAllWithOwnerByIdIn(ids).stream()
+                        .map(TripResponseDto::summaryOf)
+                        .collect(Collectors.toMap(TripResponseDto::getId, Function.identity())));
+        Map<Long, ItineraryItemResponseDto> items = load(entries, EntityType.ITINERARY_ITEM,
+                ids -> itineraryRepository.findAllById(ids).stream()
+                        .map(ItineraryItemResponseDto::summaryOf)
+                        .collect(Collectors.toMap(ItineraryItemResponseDto::getId, Function.identity())));
+        Map<Long, ActivityResponseDto> activities = load(entries, EntityType.ACTIVITY,
+                ids -> activityRepository.findAllById(ids).stream()
+                        .map(ActivityResponseDto::fromActivity)
+                        .collect(Collectors.toMap(ActivityResponseDto::getId, Function.identity())));
+        Map<Long, BudgetItemDto> budgetItems = load(entries, EntityType.BUDGET_ITEM,
+                ids -> budgetItemRepository.findAllById(ids).stream()
+                        .map(BudgetItemDto::fromBudgetItem)
+                        .collect(Collectors.toMap(BudgetItemDto::getId, Function.identity())));
+
+        List<TripChangeDto> changes = new ArrayList<>(entries.size());
+        for (ChangeLogEntry entry : entries) {
+            TripChangeDto.TripChangeDtoBuilder change = TripChangeDto.builder()
+                    .changeId(entry.getId())
+                    .entityType(entry.getEntityType())
+                    .entityId(entry.getEntityId())
+                    .tripId(entry.getTripId())
+                    .parentId(entry.getParentId())
+                    .changeType(entry.getChangeType());
+            if (entry.getChangeType() == ChangeType.UPSERT) {
+                switch (entry.getEntityType()) {
+                    case TRIP -> change.trip(trips.get(entry.getEntityId()));
+                    case ITINERARY_ITEM -> change.itineraryItem(items.get(entry.getEntityId()));
+                    case ACTIVITY -> change.activity(activities.get(entry.getEntityId()));
+                    case BUDGET_ITEM -> change.budgetItem(budgetItems.get(entry.getEntityId()));
+                }
+            }
+            changes.add(change.build());
+        }
+        return changes;
+    }
+
+    // One query per entity type for all upserted ids of that type
+    private <T> Map<Long, T> load(Collection<ChangeLogEntry> entries, EntityType type,
+                                  Function<Set<Long>, Map<Long, T>> loader) {
+        Set<Long> ids = entries.stream()
+                .filter(entry -> entry.getEntityType() == type && entry.getChangeType() == ChangeType.UPSERT)
+                .map(ChangeLogEntry::getEntityId)
+                .collect(Collectors.toSet());
+        return ids.isEmpty() ? Map.of() : loader.apply(ids);
+    }
+
+    @Scheduled(fixedDelayString = "${app.trips.changes.prune-interval-ms:3600000}")
+    public void pruneOldEntries() {
+        changeLogRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+    }
+}
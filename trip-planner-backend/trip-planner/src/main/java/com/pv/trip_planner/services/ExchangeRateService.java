@@ -0,0 +1,117 @@
+package com.pv.trip_planner.services;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the exchange-rate table used for budget conversions. Rates come from a local
+ * properties file (see exchange-rates.properties), never from a live service; the parsed
+ * table is published as an immutable RateSnapshot and swapped atomically when the file
+ * changes on disk.
+ */
+@Service
+public class ExchangeRateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateService.class);
+
+    private static final Pattern CURRENCY_CODE = Pattern.compile("^[A-Z]{3}$");
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${app.budget.rates-file:classpath:exchange-rates.properties}")
+    private String ratesFile;
+
+    @Value("${app.budget.default-currency:USD}")
+    private String defaultCurrency;
+
+    private volatile RateSnapshot snapshot;
+    private long loadedLastModified;
+
+    @PostConstruct
+    void init() throws IOException {
+        Resource resource = resourceLoader.getResource(ratesFile);
+        snapshot = parse(resource);
+        loadedLastModified = resource.isFile() ? resource.lastModified() : 0;
+        if (!snapshot.supports(defaultCurrency)) {
+            throw new IllegalStateException("No exchange rate for the default currency " + defaultCurrency);
+        }
+        logger.info("Loaded {} exchange rates as of {}", snapshot.getRates().size(), snapshot.getAsOf());
+    }
+
+    public RateSnapshot current() {
+        return snapshot;
+    }
+
+    public String getDefaultCurrency() {
+        return defaultCurrency;
+    }
+
+    // Only files on disk can change; a broken edit keeps the previous table in service
+    // and is reported once, not on every check
+    @Scheduled(fixedDelayString = "${app.budget.rates-reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        Resource resource = resourceLoader.getResource(ratesFile);
+        try {
+            if (!resource.isFile() || resource.lastModified() == loadedLastModified) {
+                return;
+            }
+            loadedLastModified = resource.lastModified();
+            RateSnapshot reloaded = parse(resource);
+            if (!reloaded.supports(defaultCurrency)) {
+                throw new IllegalArgumentException("No exchange rate for the default currency " + defaultCurrency);
+            }
+            snapshot = reloaded;
+            logger.info("Reloaded {} exchange rates as of {}", reloaded.getRates().size(), reloaded.getAsOf());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not reload exchange rates from {}: {}", ratesFile, e.getMessage());
+        }
+    }
+
+    private static RateSnapshot parse(Resource resource) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = resource.getInputStream()) {
+            properties.load(in);
+        }
+
+        String base = properties.getProperty("base");
+        String asOf = properties.getProperty("as-of");
+        if (base == null || asOf == null) {
+            throw new IllegalArgumentException("Exchange-rate file needs 'base' and 'as-of' entries");
+        }
+
+        Map<String, BigDecimal> rates = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!CURRENCY_CODE.matcher(key).matches()) {
+                continue;
+            }
+            Currency.getInstance(key);
+            BigDecimal rate = new BigDecimal(properties.getProperty(key).trim());
+            if (rate.signum() <= 0) {
+                throw new IllegalArgumentException("Exchange rate for " + key + " must be positive");
+            }
+            rates.put(key, rate);
+        }
+        if (rates.get(base) == null || rates.get(base).compareTo(BigDecimal.ONE) != 0) {
+            throw new IllegalArgumentException("The base currency " + base + " must have a rate of 1");
+        }
+        return new RateSnapshot(base, LocalDate.parse(asOf), rates);
+    }
+}
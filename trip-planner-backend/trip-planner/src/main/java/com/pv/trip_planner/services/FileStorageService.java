@@ -1,53 +1,184 @@
 package com.pv.trip_planner.services;
 
+import com.pv.trip_planner.repositories.StoredFileRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Content-addressed upload store. A file is named after the SHA-256 of its bytes plus the
+ * original extension and lives in a two-level shard, e.g. {@code ab/cd/abcd…ef.png}, so
+ * identical uploads are stored once and no directory grows unbounded. The stored filename
+ * stays flat (the shard is derived from it), and files from the old UUID layout are still
+ * resolved from the root directory.
+ *
+ * Every stored name is reference-counted in {@code stored_files}; {@link #deleteFile}
+ * removes the bytes only when the last reference goes away.
+ */
 @Service
 public class FileStorageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+
+    // A content hash, optionally followed by a variant suffix and/or extension
+    private static final Pattern HASHED_NAME = Pattern.compile("^([0-9a-f]{64})([-.][A-Za-z0-9.-]*)?$");
+    private static final Pattern ORIGINAL_NAME = Pattern.compile("^([0-9a-f]{64})(\\.[a-z0-9]{1,10})?$");
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("^[A-Za-z0-9]{1,10}$");
+
+    private static final String INCOMING_DIR = ".incoming";
+
     @Value("${app.file.upload-dir}")
     private String uploadDir;
 
-    public String storeFile(MultipartFile file) throws IOException {
-        // Create upload directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    private Path root;
+
+    // Shard directories known to exist, so stores don't stat or mkdir on every upload
+    private final Set<Path> knownDirectories = ConcurrentHashMap.newKeySet();
+
+    // Serializes store/delete of the same name so a delete can't remove bytes a store just reused
+    private final Object[] nameLocks = new Object[64];
+
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Files.createDirectories(root.resolve(INCOMING_DIR));
+        for (int i = 0; i < nameLocks.length; i++) {
+            nameLocks[i] = new Object();
         }
+    }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    public String storeFile(MultipartFile file) throws IOException {
+        MessageDigest sha256 = newSha256();
+        Path temp = Files.createTempFile(root.resolve(INCOMING_DIR), "upload-", ".tmp");
+        try {
+            // Hash while writing, so the bytes are only read once
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return storeHashedFile(temp, HexFormat.of().formatHex(sha256.digest()),
+                    extensionOf(file.getOriginalFilename()));
+        } finally {
+            Files.deleteIfExists(temp);
         }
-        String filename = UUID.randomUUID().toString() + fileExtension;
+    }
 
-        // Save file
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Moves a fully written temp file (on the upload volume) into the store under its
+     * content hash and adds a reference. When the content is already stored the temp file
+     * is discarded instead. Returns the stored filename.
+     */
+    public String storeHashedFile(Path tempFile, String sha256Hex, String extension) throws IOException {
+        String filename = sha256Hex + (extension.isEmpty() ? "" : "." + extension);
+        Path target = shardPath(filename);
 
-        // Return the relative path for storage in database
+        synchronized (lockFor(filename)) {
+            if (!Files.exists(target)) {
+                ensureDirectory(target.getParent());
+                try {
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Stored by another instance in the meantime; the bytes are identical
+                } catch (NoSuchFileException e) {
+                    // Shard directory removed behind our back; recreate it and retry once
+                    knownDirectories.remove(target.getParent());
+                    ensureDirectory(target.getParent());
+                    Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            // Only once the bytes are in place, so a failed move never leaves a reference to nothing
+            storedFileRepository.addReference(filename, Files.size(target));
+        }
         return filename;
     }
 
     public void deleteFile(String filename) {
         try {
-            Path filePath = Paths.get(uploadDir).resolve(filename);
-            Files.deleteIfExists(filePath);
+            if (isContentAddressed(filename)) {
+                synchronized (lockFor(filename)) {
+                    storedFileRepository.removeReference(filename);
+                    if (storedFileRepository.deleteIfUnreferenced(filename) == 0) {
+                        // Still referenced by another trip
+                        return;
+                    }
+                    deleteWithVariants(filename);
+                }
+            } else {
+                deleteWithVariants(filename);
+            }
         } catch (IOException e) {
             // Log error but don't throw exception for file deletion
-            System.err.println("Error deleting file: " + filename + " - " + e.getMessage());
+            logger.error("Error deleting file: {} - {}", filename, e.getMessage());
+        }
+    }
+
+    private void deleteWithVariants(String filename) throws IOException {
+        Path filePath = resolveFile(filename);
+        if (filePath != null) {
+            Files.deleteIfExists(filePath);
+        }
+        for (ImageVariantService.Variant variant : ImageVariantService.Variant.values()) {
+            Path variantPath = resolveVariant(filename, variant.paramName());
+            if (variantPath != null) {
+                Files.deleteIfExists(variantPath);
+            }
+        }
+    }
+
+    /**
+     * Resolves a stored filename to its path inside the upload directory. Hashed names map
+     * to their shard, anything else to the legacy flat layout. Returns null for names that
+     * would escape the directory (e.g. "../") so callers can answer 404.
+     */
+    public Path resolveFile(String filename) {
+        Path filePath = (HASHED_NAME.matcher(filename).matches() ? shardPath(filename) : root.resolve(filename))
+                .normalize();
+        if (!filePath.startsWith(root) || filePath.equals(root)) {
+            return null;
         }
+        return filePath;
+    }
+
+    /**
+     * Path of a generated variant of a stored image, e.g. "abc.png" + "thumb" -> "abc-thumb.jpg".
+     */
+    public Path resolveVariant(String filename, String variant) {
+        int dot = filename.lastIndexOf('.');
+        String stem = dot > 0 ? filename.substring(0, dot) : filename;
+        return resolveFile(stem + "-" + variant + ".jpg");
+    }
+
+    /**
+     * The SHA-256 (hex) of the file's bytes when the name is a content-addressed original,
+     * otherwise null. Lets callers use the name as a validator without rehashing.
+     */
+    public static String contentHashOf(String filename) {
+        Matcher matcher = ORIGINAL_NAME.matcher(filename);
+        return matcher.matches() ? matcher.group(1) : null;
     }
 
     public boolean isValidImageFile(MultipartFile file) {
@@ -58,4 +189,49 @@ public class FileStorageService {
         String contentType = file.getContentType();
         return contentType != null && contentType.startsWith("image/");
     }
+
+    /**
+     * Lower-cased extension of the client's filename, or "" when missing or not plain
+     * alphanumerics (client names are untrusted and end up in paths).
+     */
+    public static String extensionOf(String originalFilename) {
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1);
+        return SAFE_EXTENSION.matcher(extension).matches() ? extension.toLowerCase(Locale.ROOT) : "";
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Temp files for the store live on the same volume so the final move is atomic
+    public Path incomingDirectory() {
+        return root.resolve(INCOMING_DIR);
+    }
+
+    private boolean isContentAddressed(String filename) {
+        return contentHashOf(filename) != null;
+    }
+
+    private Path shardPath(String filename) {
+        return root.resolve(filename.substring(0, 2)).resolve(filename.substring(2, 4)).resolve(filename);
+    }
+
+    private void ensureDirectory(Path directory) throws IOException {
+        if (knownDirectories.contains(directory)) {
+            return;
+        }
+        Files.createDirectories(directory);
+        knownDirectories.add(directory);
+    }
+
+    private Object lockFor(String filename) {
+        return nameLocks[Math.floorMod(filename.hashCode(), nameLocks.length)];
+    }
 }
@@ -0,0 +1,387 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.Destination;
+import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory spatial index over the located destinations, itinerary items and activities of
+ * trips. Points are bucketed into a fixed grid of square cells (in degrees), so a box or
+ * radius query only looks at the cells it overlaps instead of every point.
+ *
+ * A trip is indexed as one entry and replaced as a whole. Writers hold the write lock only
+ * for the map updates of one replacement; queries run under the read lock.
+ */
+public class GeoGridIndex {
+
+    public enum Kind {
+        DESTINATION, ITINERARY_ITEM, ACTIVITY
+    }
+
+    // itineraryItemId is the item itself for ITINERARY_ITEM, its parent for ACTIVITY, null for DESTINATION
+    public record Point(Kind kind, Long id, Long tripId, Long itineraryItemId, String name, String location,
+                        double latitude, double longitude) {
+    }
+
+    /**
+     * What the index keeps of one trip: who may see it and its located points. The version
+     * is the trip's change counter, so an older read of the trip can never replace a newer one.
+     */
+    public record Entry(Long tripId, long version, String title, Set<Long> memberIds, List<Point> points) {
+
+        /**
+         * Builds the entry from a trip whose owner, collaborators, itinerary with activities
+         * and destinations are loaded. Rows without stored coordinates are located with the
+         * geocoder; rows it can't locate are left out.
+         */
+        public static Entry of(Trip trip, Function<String, Optional<GeocodingService.Coordinates>> geocoder) {
+            List<Point> points = new ArrayList<>();
+            for (Destination destination : nullSafe(trip.getDestinations())) {
+                String location = destination.getLocation() != null ? destination.getLocation() : destination.getName();
+                add(points, geocoder, Kind.DESTINATION, destination.getId(), trip.getId(), null,
+                        destination.getName(), location, destination.getLatitude(), destination.getLongitude());
+            }
+            for (ItineraryItem item : nullSafe(trip.getItinerary())) {
+                add(points, geocoder, Kind.ITINERARY_ITEM, item.getId(), trip.getId(), item.getId(),
+                        item.getTitle(), item.getLocation(), item.getLatitude(), item.getLongitude());
+                for (Activity activity : nullSafe(item.getActivities())) {
+                    add(points, geocoder, Kind.ACTIVITY, activity.getId(), trip.getId(), item.getId(),
+                            activity.getTitle(), activity.getLocation(), activity.getLatitude(), activity.getLongitude());
+                }
+            }
+
+            Set<Long> memberIds = new HashSet<>();
+            memberIds.add(trip.getOwner().getId());
+            for (User collaborator : nullSafe(trip.getCollaborators())) {
+                memberIds.add(collaborator.getId());
+            }
+
+            return new Entry(trip.getId(), trip.getVersion() != null ? trip.getVersion() : 0L, trip.getTitle(),
+                    Set.copyOf(memberIds), List.copyOf(points));
+        }
+
+        private static void add(List<Point> points, Function<String, Optional<GeocodingService.Coordinates>> geocoder,
+                                Kind kind, Long id, Long tripId, Long itineraryItemId, String name, String location,
+                                Double latitude, Double longitude) {
+            if (latitude == null || longitude == null) {
+                GeocodingService.Coordinates coordinates = geocoder.apply(location).orElse(null);
+                if (coordinates == null) {
+                    return;
+                }
+                latitude = coordinates.latitude();
+                longitude = coordinates.longitude();
+            }
+            if (isValid(latitude, longitude)) {
+                points.add(new Point(kind, id, tripId, itineraryItemId, name, location, latitude, longitude));
+            }
+        }
+
+        private static <T> Iterable<T> nullSafe(Iterable<T> items) {
+            return items != null ? items : List.of();
+        }
+    }
+
+    public record Nearby(Point point, double distanceKm) {
+    }
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE_LATITUDE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private static final Comparator<Nearby> NEAREST = Comparator.comparingDouble(Nearby::distanceKm)
+            .thenComparing(nearby -> nearby.point().kind())
+            .thenComparing(nearby -> nearby.point().id());
+
+    private final double cellSize;
+    private final int rows;
+    private final int columns;
+
+    // Cell key (row * columns + column) to the points inside it
+    private final Map<Long, List<Point>> cells = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // Member id to the ids of the trips they own or collaborate on
+    private final Map<Long, Set<Long>> tripsByMember = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int pointCount;
+
+    public GeoGridIndex(double cellSizeDegrees) {
+        if (!(cellSizeDegrees > 0 && cellSizeDegrees <= 90)) {
+            throw new IllegalArgumentException("Cell size must be between 0 and 90 degrees: " + cellSizeDegrees);
+        }
+        this.cellSize = cellSizeDegrees;
+        this.rows = (int) Math.ceil(180 / cellSizeDegrees);
+        this.columns = (int) Math.ceil(360 / cellSizeDegrees);
+    }
+
+    public static boolean isValid(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    // Great-circle distance on a spherical earth; within 0.5% of the ellipsoid
+    public static double haversineKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLatitude = Math.toRadians(latitude2 - latitude1);
+        double dLongitude = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLatitude / 2) * Math.sin(dLatitude / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLongitude / 2) * Math.sin(dLongitude / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Adds or replaces the trip's entry, unless the index already holds a newer version.
+     */
+    public boolean put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.get(entry.tripId());
+            if (existing != null) {
+                if (existing.version() > entry.version()) {
+                    return false;
+                }
+                unindex(existing);
+            }
+            entries.put(entry.tripId(), entry);
+            for (Long memberId : entry.memberIds()) {
+                tripsByMember.computeIfAbsent(memberId, key -> new HashSet<>()).add(entry.tripId());
+            }
+            for (Point point : entry.points()) {
+                cells.computeIfAbsent(cell(point.latitude(), point.longitude()), key -> new ArrayList<>()).add(point);
+            }
+            pointCount += entry.points().size();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long tripId) {
+        lock.writeLock().lock();
+        try {
+            Entry existing = entries.remove(tripId);
+            if (existing != null) {
+                unindex(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return pointCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Entry get(Long tripId) {
+        lock.readLock().lock();
+        try {
+            return entries.get(tripId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Points inside the box that pass the filter, in no particular order. A box whose west
+     * edge is east of its east edge crosses the antimeridian. With a member id only that
+     * user's trips are searched; without one (admins) every trip is.
+     */
+    public List<Point> within(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                              Long memberId, Predicate<Point> filter) {
+        List<Point> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            scan(minLatitude, minLongitude, maxLatitude, maxLongitude, memberId, point -> {
+                if (inBox(point, minLatitude, minLongitude, maxLatitude, maxLongitude) && filter.test(point)) {
+                    found.add(point);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Points within radiusKm of the center that pass the filter, in no particular order (see
+     * nearest). Candidates come from the box around the circle and are then checked by
+     * great-circle distance.
+     */
+    public List<Nearby> near(double latitude, double longitude, double radiusKm, Long memberId,
+                             Predicate<Point> filter) {
+        double dLatitude = radiusKm / KM_PER_DEGREE_LATITUDE;
+        double minLatitude = Math.max(-90, latitude - dLatitude);
+        double maxLatitude = Math.min(90, latitude + dLatitude);
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        // Unless the circle reaches a pole, it spans fewer degrees of longitude than its box's widest latitude
+        if (minLatitude > -90 && maxLatitude < 90) {
+            double widest = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+            double dLongitude = dLatitude / Math.cos(Math.toRadians(widest));
+            if (dLongitude < 180) {
+                minLongitude = wrap(longitude - dLongitude);
+                maxLongitude = wrap(longitude + dLongitude);
+            }
+        }
+
+        List<Nearby> found = new ArrayList<>();
+        double west = minLongitude;
+        double east = maxLongitude;
+        lock.readLock().lock();
+        try {
+            scan(minLatitude, west, maxLatitude, east, memberId, point -> {
+                double distance = haversineKm(latitude, longitude, point.latitude(), point.longitude());
+                if (distance <= radiusKm && filter.test(point)) {
+                    found.add(new Nearby(point, distance));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * The {@code limit} nearest points, nearest first. Selected with a bounded heap, so a
+     * query matching thousands of points doesn't sort all of them for one page.
+     */
+    public static List<Nearby> nearest(List<Nearby> found, int limit) {
+        PriorityQueue<Nearby> best = new PriorityQueue<>(limit + 1, NEAREST.reversed());
+        for (Nearby nearby : found) {
+            best.add(nearby);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Nearby> page = new ArrayList<>(best);
+        page.sort(NEAREST);
+        return page;
+    }
+
+    /**
+     * Feeds the visitor every candidate point of the box the member may see: from the grid
+     * cells the box overlaps, or straight from the member's own trips when those hold fewer
+     * points than the box has cells to look up. Candidates may lie outside the box; callers check.
+     */
+    private void scan(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                      Long memberId, Consumer<Point> visitor) {
+        int firstRow = row(minLatitude);
+        int lastRow = row(maxLatitude);
+        int firstColumn = column(minLongitude);
+        int lastColumn = column(maxLongitude);
+        boolean wraps = minLongitude > maxLongitude;
+        long columnCount = wraps ? columns - firstColumn + lastColumn + 1L : lastColumn - firstColumn + 1L;
+        long cellCount = (lastRow - firstRow + 1L) * columnCount;
+
+        Set<Long> memberTrips = memberId != null ? tripsByMember.getOrDefault(memberId, Set.of()) : null;
+        if (memberTrips != null) {
+            int memberPoints = 0;
+            for (Long tripId : memberTrips) {
+                memberPoints += entries.get(tripId).points().size();
+            }
+            if (memberPoints < Math.min(cellCount, pointCount)) {
+                for (Long tripId : memberTrips) {
+                    entries.get(tripId).points().forEach(visitor);
+                }
+                return;
+            }
+        }
+        Predicate<Point> visible = memberTrips != null ? point -> memberTrips.contains(point.tripId()) : point -> true;
+
+        // A box covering more cells than there are occupied cells is cheaper to answer from the occupied ones
+        if (cellCount > cells.size()) {
+            cells.forEach((key, points) -> {
+                long row = key / columns;
+                long column = key % columns;
+                boolean inColumns = wraps ? column >= firstColumn || column <= lastColumn
+                        : column >= firstColumn && column <= lastColumn;
+                if (row >= firstRow && row <= lastRow && inColumns) {
+                    points.stream().filter(visible).forEach(visitor);
+                }
+            });
+            return;
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            int column = firstColumn;
+            for (long i = 0; i < columnCount; i++) {
+                List<Point> points = cells.get((long) row * columns + column);
+                if (points != null) {
+                    for (Point point : points) {
+                        if (visible.test(point)) {
+                            visitor.accept(point);
+                        }
+                    }
+                }
+                column = column + 1 == columns ? 0 : column + 1;
+            }
+        }
+    }
+
+    private static boolean inBox(Point point, double minLatitude, double minLongitude, double maxLatitude,
+                                 double maxLongitude) {
+        if (point.latitude() < minLatitude || point.latitude() > maxLatitude) {
+            return false;
+        }
+        return minLongitude <= maxLongitude
+                ? point.longitude() >= minLongitude && point.longitude() <= maxLongitude
+                : point.longitude() >= minLongitude || point.longitude() <= maxLongitude;
+    }
+
+    private static double wrap(double longitude) {
+        return longitude < -180 ? longitude + 360 : longitude > 180 ? longitude - 360 : longitude;
+    }
+
+    private long cell(double latitude, double longitude) {
+        return (long) row(latitude) * columns + column(longitude);
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, (int) ((latitude + 90) / cellSize));
+    }
+
+    private int column(double longitude) {
+        return Math.min(columns - 1, (int) ((longitude + 180) / cellSize));
+    }
+
+    private void unindex(Entry entry) {
+        for (Long memberId : entry.memberIds()) {
+            Set<Long> trips = tripsByMember.get(memberId);
+            if (trips != null) {
+                trips.remove(entry.tripId());
+                if (trips.isEmpty()) {
+                    tripsByMember.remove(memberId);
+                }
+            }
+        }
+        for (Point point : entry.points()) {
+            long key = cell(point.latitude(), point.longitude());
+            List<Point> points = cells.get(key);
+            if (points != null) {
+                points.remove(point);
+                if (points.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+        pointCount -= entry.points().size();
+    }
+}
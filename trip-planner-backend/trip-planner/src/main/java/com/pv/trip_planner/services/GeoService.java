@@ -0,0 +1,199 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.GeoPointDto;
+import com.pv.trip_planner.dto.GeoTripSummaryDto;
+import com.pv.trip_planner.dto.NearbyResultDto;
+import com.pv.trip_planner.dto.WithinResultDto;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.security.SecurityUtils;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * "Near me" and map-viewport queries over the located destinations, itinerary items and
+ * activities of the trips a user can see, answered from GeoGridIndex without touching the
+ * database. TripIndexUpdater builds the index at startup and keeps it current after every
+ * write.
+ */
+@Service
+public class GeoService implements TripIndex {
+
+    private static final Comparator<GeoGridIndex.Point> BY_TRIP = Comparator
+            .comparing(GeoGridIndex.Point::tripId)
+            .thenComparing(GeoGridIndex.Point::kind)
+            .thenComparing(GeoGridIndex.Point::id);
+
+    @Autowired
+    private GeocodingService geocodingService;
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Value("${app.geo.cell-size-degrees:0.05}")
+    private double cellSizeDegrees;
+
+    @Value("${app.geo.default-radius-km:2}")
+    private double defaultRadiusKm;
+
+    @Value("${app.geo.max-radius-km:500}")
+    private double maxRadiusKm;
+
+    @Value("${app.geo.default-results:50}")
+    private int defaultResults;
+
+    @Value("${app.geo.max-results:500}")
+    private int maxResults;
+
+    private GeoGridIndex index;
+
+    @PostConstruct
+    void init() {
+        index = new GeoGridIndex(cellSizeDegrees);
+    }
+
+    @Override
+    public void put(Trip trip) {
+        index.put(GeoGridIndex.Entry.of(trip, geocodingService::geocode));
+    }
+
+    @Override
+    public void remove(Long tripId) {
+        index.remove(tripId);
+    }
+
+    /**
+     * Points of the current user's trips (every trip for admins) within radiusKm of a
+     * position, nearest first. The position is given as latitude/longitude or as a place
+     * name ("near=Louvre, Paris") resolved by the gazetteer.
+     */
+    public NearbyResultDto nearby(Double latitude, Double longitude, String near, Double radiusKm, String type,
+                                  Long tripId, Integer limit) {
+        User currentUser = requireUser();
+        double centerLatitude;
+        double centerLongitude;
+        if (latitude != null || longitude != null) {
+            if (latitude == null || longitude == null || !GeoGridIndex.isValid(latitude, longitude)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "lat and lon must both be given, with lat in [-90, 90] and lon in [-180, 180]");
+            }
+            centerLatitude = latitude;
+            centerLongitude = longitude;
+        } else if (near != null && !near.isBlank()) {
+            GeocodingService.Coordinates coordinates = geocodingService.geocode(near)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown place: " + near));
+            centerLatitude = coordinates.latitude();
+            centerLongitude = coordinates.longitude();
+        } else {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either lat and lon or near is required");
+        }
+        double radius = radiusKm != null ? radiusKm : defaultRadiusKm;
+        if (!(radius > 0 && radius <= maxRadiusKm)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "radiusKm must be greater than 0 and at most " + maxRadiusKm);
+        }
+
+        long start = System.nanoTime();
+        List<GeoGridIndex.Nearby> found = index.near(centerLatitude, centerLongitude, radius,
+                memberScope(currentUser), filter(type, tripId));
+        List<GeoPointDto> page = GeoGridIndex.nearest(found, resultLimit(limit)).stream()
+                .map(GeoPointDto::fromNearby)
+                .collect(Collectors.toList());
+
+        return NearbyResultDto.builder()
+                .latitude(centerLatitude)
+                .longitude(centerLongitude)
+                .radiusKm(radius)
+                .total(found.size())
+                .points(page)
+                .tookMicros((System.nanoTime() - start) / 1_000)
+                .build();
+    }
+
+    /**
+     * Points of the current user's trips (every trip for admins) inside a box, e.g. a map
+     * viewport, with a count per trip. A box whose minLon is greater than its maxLon crosses
+     * the antimeridian.
+     */
+    public WithinResultDto within(Double minLatitude, Double minLongitude, Double maxLatitude, Double maxLongitude,
+                                  String type, Long tripId, Integer limit) {
+        User currentUser = requireUser();
+        if (minLatitude == null || minLongitude == null || maxLatitude == null || maxLongitude == null
+                || !GeoGridIndex.isValid(minLatitude, minLongitude) || !GeoGridIndex.isValid(maxLatitude, maxLongitude)
+                || minLatitude > maxLatitude) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "minLat, minLon, maxLat and maxLon are required, with minLat <= maxLat");
+        }
+
+        long start = System.nanoTime();
+        List<GeoGridIndex.Point> found = index.within(minLatitude, minLongitude, maxLatitude, maxLongitude,
+                memberScope(currentUser), filter(type, tripId));
+        List<GeoPointDto> page = found.stream()
+                .sorted(BY_TRIP)
+                .limit(resultLimit(limit))
+                .map(GeoPointDto::fromPoint)
+                .collect(Collectors.toList());
+
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        for (GeoGridIndex.Point point : found) {
+            counts.merge(point.tripId(), 1L, Long::sum);
+        }
+        List<GeoTripSummaryDto> trips = counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> {
+                    GeoGridIndex.Entry trip = index.get(entry.getKey());
+                    return new GeoTripSummaryDto(entry.getKey(), trip != null ? trip.title() : null, entry.getValue());
+                })
+                .collect(Collectors.toList());
+
+        return WithinResultDto.builder()
+                .total(found.size())
+                .points(page)
+                .trips(trips)
+                .tookMicros((System.nanoTime() - start) / 1_000)
+                .build();
+    }
+
+    private User requireUser() {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        return currentUser;
+    }
+
+    // Admins see every trip; everyone else only the trips they own or collaborate on
+    private Long memberScope(User currentUser) {
+        return securityUtils.isAdmin(currentUser) ? null : currentUser.getId();
+    }
+
+    private int resultLimit(Integer limit) {
+        return limit == null || limit < 1 ? defaultResults : Math.min(limit, maxResults);
+    }
+
+    private static Predicate<GeoGridIndex.Point> filter(String type, Long tripId) {
+        GeoGridIndex.Kind kind = null;
+        if (type != null && !type.isBlank()) {
+            try {
+                kind = GeoGridIndex.Kind.valueOf(type.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "type must be DESTINATION, ITINERARY_ITEM or ACTIVITY");
+            }
+        }
+        GeoGridIndex.Kind wanted = kind;
+        return point -> (wanted == null || point.kind() == wanted) && (tripId == null || tripId.equals(point.tripId()));
+    }
+}
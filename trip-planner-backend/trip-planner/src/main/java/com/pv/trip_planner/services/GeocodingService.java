@@ -0,0 +1,192 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.ItineraryItem;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves free-text locations ("Louvre, Paris", "Kyoto old town") to coordinates using an
+ * offline gazetteer file; there is no geocoding web service. Resolved strings are cached,
+ * misses included, since the same few locations repeat across itineraries.
+ *
+ * Coordinates a client sends are kept; otherwise they are filled from the location when an
+ * itinerary item or activity is written. At startup rows that have a location but no
+ * coordinates are backfilled, before the trip indexes are built from them.
+ */
+@Service
+@Order(1)
+public class GeocodingService implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeocodingService.class);
+
+    public record Coordinates(double latitude, double longitude) {
+    }
+
+    // Longest run of words tried as a place name inside a longer location
+    private static final int MAX_NAME_WORDS = 4;
+
+    // Table to the column text it is located by; a destination without a location is its name
+    private static final Map<String, String> LOCATED_TABLES = Map.of(
+            "destinations", "COALESCE(location, name)",
+            "itinerary_items", "location",
+            "activities", "location");
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.geo.gazetteer-file:classpath:gazetteer.csv}")
+    private String gazetteerFile;
+
+    @Value("${app.geo.geocode-cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    private Map<String, Coordinates> gazetteer;
+    private final Map<String, Optional<Coordinates>> cache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        Resource resource = resourceLoader.getResource(gazetteerFile);
+        Map<String, Coordinates> places = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            boolean header = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                String[] columns = line.split(",");
+                if (columns.length != 4) {
+                    throw new IllegalStateException("Malformed gazetteer line: " + line);
+                }
+                Coordinates coordinates = new Coordinates(
+                        Double.parseDouble(columns[2].trim()), Double.parseDouble(columns[3].trim()));
+                String name = normalize(columns[0]);
+                places.putIfAbsent(name, coordinates);
+                // "Paris FR" or "Paris, FR" picks the place in that country
+                places.putIfAbsent(name + " " + columns[1].trim().toLowerCase(), coordinates);
+            }
+        }
+        gazetteer = Map.copyOf(places);
+        logger.info("Loaded {} gazetteer names", gazetteer.size());
+    }
+
+    /**
+     * The coordinates of a location: the whole text if it is a known place, otherwise its
+     * comma-separated parts in order ("Louvre, Paris" finds the Louvre), otherwise the
+     * longest known run of words ("Kyoto old town" finds Kyoto).
+     */
+    public Optional<Coordinates> geocode(String location) {
+        if (location == null || location.isBlank()) {
+            return Optional.empty();
+        }
+        Optional<Coordinates> cached = cache.get(location);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<Coordinates> resolved = Optional.ofNullable(resolve(location));
+        if (cache.size() >= cacheMaxSize) {
+            cache.clear();
+        }
+        cache.put(location, resolved);
+        return resolved;
+    }
+
+    private Coordinates resolve(String location) {
+        Coordinates coordinates = gazetteer.get(normalize(location));
+        if (coordinates != null) {
+            return coordinates;
+        }
+        for (String part : location.split(",")) {
+            coordinates = gazetteer.get(normalize(part));
+            if (coordinates != null) {
+                return coordinates;
+            }
+        }
+        List<String> words = TripSearchIndex.tokenize(location);
+        for (int length = Math.min(MAX_NAME_WORDS, words.size()); length >= 1; length--) {
+            for (int start = 0; start + length <= words.size(); start++) {
+                coordinates = gazetteer.get(String.join(" ", words.subList(start, start + length)));
+                if (coordinates != null) {
+                    return coordinates;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fills the item's and its activities' coordinates from their locations unless the
+     * client sent both.
+     */
+    public void locate(ItineraryItem item) {
+        if (item.getLatitude() == null || item.getLongitude() == null) {
+            Coordinates coordinates = geocode(item.getLocation()).orElse(null);
+            item.setLatitude(coordinates != null ? coordinates.latitude() : null);
+            item.setLongitude(coordinates != null ? coordinates.longitude() : null);
+        }
+        if (item.getActivities() != null) {
+            item.getActivities().forEach(this::locate);
+        }
+    }
+
+    public void locate(Activity activity) {
+        if (activity.getLatitude() == null || activity.getLongitude() == null) {
+            Coordinates coordinates = geocode(activity.getLocation()).orElse(null);
+            activity.setLatitude(coordinates != null ? coordinates.latitude() : null);
+            activity.setLongitude(coordinates != null ? coordinates.longitude() : null);
+        }
+    }
+
+    // One UPDATE per distinct location and table; rows nothing matches stay without coordinates
+    @Override
+    public void run(String... args) {
+        LOCATED_TABLES.forEach((table, location) -> {
+            List<String> locations = jdbcTemplate.queryForList("SELECT DISTINCT " + location + " FROM " + table
+                    + " WHERE " + location + " IS NOT NULL AND latitude IS NULL", String.class);
+            List<Object[]> updates = new ArrayList<>();
+            for (String text : locations) {
+                geocode(text).ifPresent(coordinates -> updates.add(
+                        new Object[] {coordinates.latitude(), coordinates.longitude(), text}));
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE " + table + " SET latitude = ?, longitude = ?"
+                        + " WHERE " + location + " = ? AND latitude IS NULL", updates);
+                logger.info("Geocoded {} of {} distinct locations in {}", updates.size(), locations.size(), table);
+            }
+        });
+    }
+
+    private static String normalize(String name) {
+        return String.join(" ", TripSearchIndex.tokenize(name));
+    }
+}
@@ -0,0 +1,119 @@
+package com.pv.trip_planner.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes iCalendar (RFC 5545) content lines straight to a stream, one property at a time:
+ * UTF-8, CRLF line ends, text values escaped and lines folded at 75 octets without
+ * splitting a character.
+ */
+public class IcsWriter {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] FOLD = {'\r', '\n', ' '};
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final OutputStream out;
+
+    public IcsWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void begin(String component) throws IOException {
+        line("BEGIN:" + component);
+    }
+
+    public void end(String component) throws IOException {
+        line("END:" + component);
+    }
+
+    // A TEXT property; nothing is written for a null or blank value
+    public void text(String name, String value) throws IOException {
+        if (value != null && !value.isBlank()) {
+            line(name + ":" + escape(value));
+        }
+    }
+
+    // A property whose value is written as is (identifiers, durations, enumerated values)
+    public void value(String name, String value) throws IOException {
+        line(name + ":" + value);
+    }
+
+    // All-day value: VALUE=DATE
+    public void date(String name, LocalDate date) throws IOException {
+        line(name + ";VALUE=DATE:" + DATE.format(date));
+    }
+
+    // Floating local time: no zone, so the event shows at that time wherever the reader is
+    public void dateTime(String name, LocalDateTime dateTime) throws IOException {
+        line(name + ":" + DATE_TIME.format(dateTime));
+    }
+
+    public void utc(String name, Instant instant) throws IOException {
+        line(name + ":" + DATE_TIME.format(instant.atOffset(ZoneOffset.UTC)) + "Z");
+    }
+
+    private void line(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int lineOctets = 0;
+        int from = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            // Continuation bytes (10xxxxxx) stay with the character they belong to
+            if ((bytes[i] & 0xC0) == 0x80) {
+                continue;
+            }
+            int length = characterLength(bytes[i]);
+            if (lineOctets + (i - from) + length > MAX_LINE_OCTETS) {
+                out.write(bytes, from, i - from);
+                out.write(FOLD);
+                // The leading space of a folded line counts towards its length
+                lineOctets = 1;
+                from = i;
+            }
+        }
+        out.write(bytes, from, bytes.length - from);
+        out.write(CRLF);
+    }
+
+    private static int characterLength(byte lead) {
+        if ((lead & 0x80) == 0) {
+            return 1;
+        }
+        if ((lead & 0xE0) == 0xC0) {
+            return 2;
+        }
+        return (lead & 0xF0) == 0xE0 ? 3 : 4;
+    }
+
+    // Backslash, semicolon, comma and newlines are escaped; other control characters dropped
+    static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\', ';', ',' -> escaped.append('\\').append(c);
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> {
+                    if (i + 1 >= value.length() || value.charAt(i + 1) != '\n') {
+                        escaped.append("\\n");
+                    }
+                }
+                default -> {
+                    if (c >= 0x20 || c == '\t') {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+}
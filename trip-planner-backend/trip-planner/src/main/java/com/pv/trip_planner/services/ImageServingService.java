@@ -0,0 +1,213 @@
+package com.pv.trip_planner.services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves uploaded images as static assets: strong ETags, Last-Modified, conditional 304s,
+ * single byte ranges and long-lived immutable caching. Bodies go out through Tomcat's
+ * sendfile support when the connector offers it, otherwise through FileChannel.transferTo.
+ *
+ * Stored filenames are unique per upload and never rewritten, which is what makes the
+ * "immutable" Cache-Control safe.
+ */
+@Service
+public class ImageServingService {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // For responses that stand in for content which may change under the same URL
+    public static final String SHORT_CACHE_CONTROL = "public, max-age=60";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${app.images.metadata-cache.max-size:10000}")
+    private int metadataCacheMaxSize;
+
+    // ETag and content type per file; an entry is reused while size and mtime are unchanged
+    private final Map<Path, FileMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    private record FileMetadata(long size, long lastModified, String etag, MediaType contentType) {
+    }
+
+    public void serve(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(file, CACHE_CONTROL, request, response);
+    }
+
+    public void serve(Path file, String cacheControl, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        if (file == null || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        FileMetadata metadata = getMetadata(file);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Sets ETag / Last-Modified and answers 304 (or 412) when the client copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(metadata.etag(), metadata.lastModified())) {
+            return;
+        }
+
+        long size = metadata.size();
+        long start = 0;
+        long end = size - 1;
+        int status = HttpServletResponse.SC_OK;
+
+        HttpRange range;
+        try {
+            range = requestedRange(request, metadata);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (range != null) {
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size);
+            status = HttpServletResponse.SC_PARTIAL_CONTENT;
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        long length = size == 0 ? 0 : end - start + 1;
+        response.setStatus(status);
+        response.setContentType(metadata.contentType().toString());
+        response.setContentLengthLong(length);
+
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file straight from the page cache once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Returns the single range to serve, or null to send the whole file. Multi-range
+     * requests and ranges whose If-Range validator no longer matches get the full body.
+     *
+     * @throws IllegalArgumentException when the range is malformed or not satisfiable
+     */
+    private HttpRange requestedRange(HttpServletRequest request, FileMetadata metadata) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || metadata.size() == 0) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(metadata.etag())) {
+            return null;
+        }
+
+        List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+        if (ranges.size() != 1) {
+            return null;
+        }
+        HttpRange range = ranges.get(0);
+        if (range.getRangeStart(metadata.size()) >= metadata.size()) {
+            throw new IllegalArgumentException("Range starts past the end of the file");
+        }
+        return range;
+    }
+
+    private FileMetadata getMetadata(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        FileMetadata cached = metadataCache.get(file);
+        if (cached != null && cached.size() == size && cached.lastModified() == lastModified) {
+            return cached;
+        }
+
+        String contentHash = FileStorageService.contentHashOf(file.getFileName().toString());
+        FileMetadata metadata = contentHash != null
+                ? readContentType(file, size, lastModified, "\"" + contentHash + "\"")
+                : readMetadata(file, size, lastModified);
+        if (metadataCache.size() >= metadataCacheMaxSize) {
+            metadataCache.clear();
+        }
+        metadataCache.put(file, metadata);
+        return metadata;
+    }
+
+    // Content-addressed files are named after their hash, so only the type has to be sniffed
+    private FileMetadata readContentType(Path file, long size, long lastModified, String etag) throws IOException {
+        String sniffedType;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64)) {
+            sniffedType = URLConnection.guessContentTypeFromStream(in);
+        }
+        return new FileMetadata(size, lastModified, etag, contentType(file, sniffedType));
+    }
+
+    // Hashes the file for its ETag and sniffs the content type in the same pass
+    private FileMetadata readMetadata(Path file, long size, long lastModified) throws IOException {
+        MessageDigest sha256 = FileStorageService.newSha256();
+
+        String sniffedType;
+        // The buffer sits outside the digest so the bytes re-read after sniffing are hashed once
+        try (InputStream in = new BufferedInputStream(new DigestInputStream(Files.newInputStream(file), sha256))) {
+            sniffedType = URLConnection.guessContentTypeFromStream(in);
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+
+        String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest()) + "\"";
+        return new FileMetadata(size, lastModified, etag, contentType(file, sniffedType));
+    }
+
+    private MediaType contentType(Path file, String sniffedType) {
+        return sniffedType != null
+                ? MediaType.parseMediaType(sniffedType)
+                : MediaTypeFactory.getMediaType(file.getFileName().toString())
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+}
@@ -0,0 +1,285 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.entities.ChangeLogEntry.ChangeType;
+import com.pv.trip_planner.entities.ChangeLogEntry.EntityType;
+import com.pv.trip_planner.repositories.TripRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates downscaled JPEG variants of trip images in the background. Each upload is
+ * decoded once on a small bounded pool; a semaphore sized in megabytes of decoded pixels
+ * keeps concurrent decodes of large originals from exhausting the heap.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    public enum Variant {
+        THUMB(160), CARD(480), HERO(1280);
+
+        private final int width;
+
+        Variant(int width) {
+            this.width = width;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public String paramName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Variant fromParam(String size) {
+            for (Variant variant : values()) {
+                if (variant.paramName().equalsIgnoreCase(size)) {
+                    return variant;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Value("${app.images.variants.threads:2}")
+    private int threads;
+
+    @Value("${app.images.variants.queue-capacity:100}")
+    private int queueCapacity;
+
+    // Upper bound on decoded pixel memory across all workers
+    @Value("${app.images.variants.memory-budget-mb:256}")
+    private int memoryBudgetMb;
+
+    @Value("${app.images.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore memoryBudget;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        memoryBudget = new Semaphore(memoryBudgetMb);
+    }
+
+    /**
+     * Queues variant generation for a stored image and returns immediately. Variants are
+     * optional: if the pool is saturated the trip simply keeps serving its original.
+     */
+    public void generateVariantsAsync(Long tripId, String filename) {
+        try {
+            executor.execute(() -> generateVariants(tripId, filename));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Image variant queue full, skipping variants for trip {}", tripId);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onImageStored(TripImageStoredEvent event) {
+        generateVariantsAsync(event.tripId(), event.filename());
+    }
+
+    private void generateVariants(Long tripId, String filename) {
+        Path original = fileStorageService.resolveFile(filename);
+        if (original == null || !Files.isRegularFile(original)) {
+            return;
+        }
+
+        try {
+            // Content-addressed uploads are shared, so a re-upload may already have its variants
+            if (allVariantsExist(filename)) {
+                recordVariants(tripId, filename, allVariantNames());
+                return;
+            }
+
+            int[] size = readDimensions(original);
+            if (size == null) {
+                logger.warn("Unsupported image format for {}, no variants generated", filename);
+                return;
+            }
+
+            // ARGB pixels of the decoded original, rounded up to whole megabytes
+            int permits = (int) Math.max(1, ((long) size[0] * size[1] * 4 + (1 << 20) - 1) >> 20);
+            if (permits > memoryBudgetMb) {
+                logger.warn("Image {} ({}x{}) exceeds the decode memory budget, no variants generated",
+                        filename, size[0], size[1]);
+                return;
+            }
+
+            List<String> generated = new ArrayList<>();
+            memoryBudget.acquire(permits);
+            try {
+                BufferedImage source = ImageIO.read(original.toFile());
+                if (source == null) {
+                    return;
+                }
+                for (Variant variant : Variant.values()) {
+                    writeJpeg(scaleToWidth(source, variant.getWidth()),
+                            fileStorageService.resolveVariant(filename, variant.paramName()));
+                    generated.add(variant.paramName());
+                }
+            } finally {
+                memoryBudget.release(permits);
+            }
+
+            recordVariants(tripId, filename, String.join(",", generated));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to generate image variants for trip {}", tripId, e);
+        }
+    }
+
+    private void recordVariants(Long tripId, String filename, String variants) {
+        // Skipped when the trip switched to another image in the meantime
+        if (tripRepository.updateImageVariants(tripId, filename, variants) > 0) {
+            changeFeedService.record(tripId, EntityType.TRIP, tripId, null, ChangeType.UPSERT);
+        }
+    }
+
+    private boolean allVariantsExist(String filename) {
+        for (Variant variant : Variant.values()) {
+            Path path = fileStorageService.resolveVariant(filename, variant.paramName());
+            if (path == null || !Files.isRegularFile(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String allVariantNames() {
+        List<String> names = new ArrayList<>();
+        for (Variant variant : Variant.values()) {
+            names.add(variant.paramName());
+        }
+        return String.join(",", names);
+    }
+
+    // Reads only the image header, so the memory cost is known before decoding
+    private int[] readDimensions(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new int[] { reader.getWidth(0), reader.getHeight(0) };
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Downscales in successive halving steps with bilinear filtering, which is close to
+     * area averaging in quality at a fraction of its cost. Never upscales.
+     */
+    private BufferedImage scaleToWidth(BufferedImage source, int targetWidth) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int finalWidth = Math.min(targetWidth, width);
+        int finalHeight = Math.max(1, (int) Math.round((double) height * finalWidth / width));
+
+        BufferedImage current = source;
+        do {
+            int nextWidth = Math.max(finalWidth, width / 2);
+            int nextHeight = nextWidth == finalWidth ? finalHeight : Math.max(finalHeight, height / 2);
+
+            // JPEG has no alpha channel; transparent areas are flattened onto white
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            current = next;
+            width = nextWidth;
+            height = nextHeight;
+        } while (width > finalWidth);
+        return current;
+    }
+
+    // Written to a temp file and moved into place, so readers never see a partial variant
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
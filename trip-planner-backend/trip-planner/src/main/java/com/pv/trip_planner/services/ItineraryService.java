@@ -3,11 +3,19 @@ package com.pv.trip_planner.services;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.pv.trip_planner.dto.ActivityResponseDto;
 import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.ChangeLogEntry.ChangeType;
+import com.pv.trip_planner.entities.ChangeLogEntry.EntityType;
 import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.repositories.ActivityRepository;
 import com.pv.trip_planner.repositories.ItineraryRepository;
+import com.pv.trip_planner.repositories.TripRepository;
 
 
 @Service
@@ -16,14 +24,31 @@ public class ItineraryService {
     @Autowired
     private ItineraryRepository itineraryRepository;
 
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private GeocodingService geocodingService;
+
+    @Autowired
+    private ScheduleService scheduleService;
+
     public List<ItineraryItem> fetAllItineraryItems() {
         return itineraryRepository.findAll();
     }
 
     public void createItineraryItem(ItineraryItem itineraryItem) {
+        geocodingService.locate(itineraryItem);
         itineraryRepository.save(itineraryItem);
     }
 
+    @Transactional
     public void updateItineraryItem(Long id, ItineraryItem itineraryItem) {
         ItineraryItem existingItem = itineraryRepository.findById(id)
         .orElseThrow(() -> new RuntimeException("Itinerary item not found"));
@@ -33,51 +58,102 @@ public class ItineraryService {
         existingItem.setStartDate(itineraryItem.getStartDate());
         existingItem.setEndDate(itineraryItem.getEndDate());
         existingItem.setLocation(itineraryItem.getLocation());
+        existingItem.setLatitude(itineraryItem.getLatitude());
+        existingItem.setLongitude(itineraryItem.getLongitude());
+        geocodingService.locate(existingItem);
 
         itineraryRepository.save(existingItem);
+        tripRepository.findTripIdByItineraryItemId(id).ifPresent(tripId -> changeFeedService.record(
+                tripId, EntityType.ITINERARY_ITEM, id, tripId, ChangeType.UPSERT));
     }
 
-    public void addActivityToItineraryItem(Long id, Activity activity) {
-        ItineraryItem existingItineraryItem  = itineraryRepository.findById(id)
-        .orElseThrow(() -> new RuntimeException("Itinerary item not found"));
-
-        existingItineraryItem.getActivities().add(activity);
-
-        itineraryRepository.save(existingItineraryItem);
+    /**
+     * Inserts the activity and its join row directly; the item's activity list is never loaded.
+     * The response lists the activities it overlaps, if any.
+     */
+    @Transactional
+    public ActivityResponseDto addActivityToItineraryItem(Long id, Activity activity) {
+        if (!itineraryRepository.existsById(id)) {
+            throw new RuntimeException("Itinerary item not found");
+        }
+
+        activity.setId(null);
+        activity.setVersion(null);
+        activity.setItineraryItem(itineraryRepository.getReferenceById(id));
+        geocodingService.locate(activity);
+        Activity savedActivity = activityRepository.save(activity);
+        recordActivityChange(id, savedActivity.getId(), ChangeType.UPSERT);
+        ActivityResponseDto response = ActivityResponseDto.fromActivity(savedActivity);
+        response.setConflicts(scheduleService.activityWritten(id, savedActivity));
+        return response;
     }
 
-    public void deleteActivityFromItineraryItem(Long id, Long activityId) {
-        ItineraryItem existingItineraryItem = itineraryRepository.findById(id)
-        .orElseThrow(() -> new RuntimeException("Itinerary item not found"));
-
-        existingItineraryItem.getActivities().removeIf(activity -> activity.getId().equals(activityId));
-
-        itineraryRepository.save(existingItineraryItem);
+    /**
+     * Deletes one activity by key. The row is locked while its version is checked, so when
+     * the client sends the version it read, the delete fails with 409 if a collaborator
+     * changed the activity in the meantime and never races a concurrent edit.
+     */
+    @Transactional
+    public void deleteActivityFromItineraryItem(Long id, Long activityId, Long version) {
+        checkVersion(lockActivity(id, activityId), version);
+        activityRepository.deleteByKey(activityId);
+        recordActivityChange(id, activityId, ChangeType.DELETE);
+        scheduleService.activityDeleted(activityId);
     }
 
-    public void updateActivityInItineraryItem(Long id, Long activityId, Activity activity) {
-        ItineraryItem existingItineraryItem = itineraryRepository.findById(id)
-        .orElseThrow(() -> new RuntimeException("Itinerary item not found"));
-
-        Activity existingActivity = existingItineraryItem.getActivities().stream()
-        .filter(a -> a.getId().equals(activityId))
-        .findFirst()
-        .orElseThrow(() -> new RuntimeException("Activity not found"));
-
-        // existingActivity.setTitle(activity.getTitle());
-        existingActivity.setDescription(activity.getDescription());
-        // existingActivity.setStartTime(activity.getStartTime());
-        // existingActivity.setEndTime(activity.getEndTime());
-        // existingActivity.setLocation(activity.getLocation());
-
-        itineraryRepository.save(existingItineraryItem);
+    /**
+     * Applies the non-null fields of the request to one activity with a single UPDATE. If
+     * the request carries a version, stale edits are rejected with 409 instead of
+     * overwriting a collaborator's change.
+     */
+    @Transactional
+    public ActivityResponseDto updateActivityInItineraryItem(Long id, Long activityId, Activity activity) {
+        checkVersion(lockActivity(id, activityId), activity.getVersion());
+
+        // Coordinates follow a new location unless the client sends both with it
+        boolean relocate = activity.getLocation() != null
+                || (activity.getLatitude() != null && activity.getLongitude() != null);
+        if (relocate) {
+            geocodingService.locate(activity);
+        }
+        activityRepository.patch(activityId, activity.getVersion(), activity.getTitle(),
+                activity.getDescription(), activity.getLocation(), relocate, activity.getLatitude(),
+                activity.getLongitude(), activity.getStartTime(), activity.getEndTime());
+        recordActivityChange(id, activityId, ChangeType.UPSERT);
+
+        Activity updatedActivity = activityRepository.findById(activityId)
+                .orElseThrow(() -> new RuntimeException("Activity not found"));
+        ActivityResponseDto response = ActivityResponseDto.fromActivity(updatedActivity);
+        response.setConflicts(scheduleService.activityWritten(id, updatedActivity));
+        return response;
     }
 
+    @Transactional
     public void deleteTripItinerary(Long id) {
         ItineraryItem existingItem = itineraryRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Itinerary item not found"));
         
+        tripRepository.findTripIdByItineraryItemId(id).ifPresent(tripId -> changeFeedService.record(
+                tripId, EntityType.ITINERARY_ITEM, id, tripId, ChangeType.DELETE));
         itineraryRepository.delete(existingItem);
     }
 
+    // Locked until the transaction ends; an activity that is gone (or not in the item) is a 404
+    private Long lockActivity(Long itemId, Long activityId) {
+        return activityRepository.lockInItineraryItem(activityId, itemId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Activity not found"));
+    }
+
+    // Without a version from the client the write applies to whatever is current
+    private static void checkVersion(Long currentVersion, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Activity was modified by someone else");
+        }
+    }
+
+    // Items created outside a trip have no feed to record into
+    private void recordActivityChange(Long itemId, Long activityId, ChangeType changeType) {
+        tripRepository.findTripIdByItineraryItemId(itemId).ifPresent(tripId -> changeFeedService.record(
+                tripId, EntityType.ACTIVITY, activityId, itemId, changeType));
+    }
 }
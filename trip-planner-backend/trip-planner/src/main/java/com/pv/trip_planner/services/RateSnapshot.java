@@ -0,0 +1,79 @@
+package com.pv.trip_planner.services;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.Map;
+
+/**
+ * One immutable version of the exchange-rate table. Readers hold on to a snapshot for the
+ * whole request, so a reload can't mix old and new rates within one summary.
+ *
+ * Amounts are handled in minor units (long); a rate is applied once per currency total,
+ * never per item, so conversion costs the same for ten items or ten thousand.
+ */
+public final class RateSnapshot {
+
+    private final String base;
+    private final LocalDate asOf;
+    // Units of each currency per 1 unit of the base currency
+    private final Map<String, BigDecimal> rates;
+
+    public RateSnapshot(String base, LocalDate asOf, Map<String, BigDecimal> rates) {
+        this.base = base;
+        this.asOf = asOf;
+        this.rates = Map.copyOf(rates);
+    }
+
+    public String getBase() {
+        return base;
+    }
+
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    public Map<String, BigDecimal> getRates() {
+        return rates;
+    }
+
+    public boolean supports(String currency) {
+        return rates.containsKey(currency);
+    }
+
+    public static int minorDigits(String currency) {
+        return Currency.getInstance(currency).getDefaultFractionDigits();
+    }
+
+    public static long toMinor(BigDecimal amount, String currency) {
+        return amount.setScale(minorDigits(currency), RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMinor(long amountMinor, String currency) {
+        return BigDecimal.valueOf(amountMinor, minorDigits(currency));
+    }
+
+    /**
+     * Converts an amount in minor units of one currency to minor units of another, rounding
+     * half-even once at the end.
+     */
+    public long convertMinor(long amountMinor, String from, String to) {
+        if (from.equals(to) || amountMinor == 0) {
+            return amountMinor;
+        }
+        BigDecimal converted = fromMinor(amountMinor, from)
+                .multiply(rate(to))
+                .divide(rate(from), MathContext.DECIMAL128);
+        return toMinor(converted.setScale(minorDigits(to), RoundingMode.HALF_EVEN), to);
+    }
+
+    private BigDecimal rate(String currency) {
+        BigDecimal rate = rates.get(currency);
+        if (rate == null) {
+            throw new IllegalArgumentException("No exchange rate for " + currency);
+        }
+        return rate;
+    }
+}
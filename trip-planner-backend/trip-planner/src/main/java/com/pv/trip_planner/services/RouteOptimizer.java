@@ -0,0 +1,279 @@
+package com.pv.trip_planner.services;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds a short visiting order through a set of stops (an open path: the route doesn't
+ * return to where it started). Distances are precomputed into one flat array; each search
+ * builds a nearest-neighbour path and improves it with 2-opt and or-opt moves until no move
+ * helps or the deadline passes. Several searches from different starts run in parallel on
+ * a fork-join pool and the shortest path wins.
+ */
+public class RouteOptimizer {
+
+    public record Route(int[] order, double distanceKm, boolean complete) {
+    }
+
+    private static final double EPSILON = 1e-9;
+    // Longest run of stops or-opt moves as a block
+    private static final int MAX_SEGMENT = 3;
+
+    private final double[] distances;
+    private final int size;
+    private final boolean fixedStart;
+
+    /**
+     * @param fixedStart keep stop 0 first, e.g. where the traveller arrives
+     */
+    public RouteOptimizer(double[] latitudes, double[] longitudes, boolean fixedStart) {
+        this.size = latitudes.length;
+        this.distances = distanceMatrix(latitudes, longitudes);
+        this.fixedStart = fixedStart;
+    }
+
+    /**
+     * Great-circle distances in km between every pair of stops, row-major: the distance
+     * from i to j is at {@code i * n + j}.
+     */
+    public static double[] distanceMatrix(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        double[] radians = new double[n];
+        double[] cosines = new double[n];
+        for (int i = 0; i < n; i++) {
+            radians[i] = Math.toRadians(latitudes[i]);
+            cosines[i] = Math.cos(radians[i]);
+        }
+        double[] matrix = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double sinLatitude = Math.sin((radians[j] - radians[i]) / 2);
+                double sinLongitude = Math.sin(Math.toRadians(longitudes[j] - longitudes[i]) / 2);
+                double a = sinLatitude * sinLatitude + cosines[i] * cosines[j] * sinLongitude * sinLongitude;
+                double distance = 2 * 6371.0088 * Math.asin(Math.min(1, Math.sqrt(a)));
+                matrix[i * n + j] = distance;
+                matrix[j * n + i] = distance;
+            }
+        }
+        return matrix;
+    }
+
+    public double length(int[] order) {
+        double total = 0;
+        for (int i = 1; i < order.length; i++) {
+            total += distances[order[i - 1] * size + order[i]];
+        }
+        return total;
+    }
+
+    /**
+     * The shortest path found by {@code starts} searches run on the pool. Search 0 is a plain
+     * nearest-neighbour path from stop 0; the others start from a random stop (unless the
+     * start is fixed) and pick randomly between the two nearest stops, to explore other
+     * paths. The result is not complete if the deadline cut a search short.
+     */
+    public Route solve(int starts, long deadlineNanos, ForkJoinPool pool) {
+        if (size <= 2) {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            return new Route(order, length(order), true);
+        }
+        return pool.invoke(new Search(0, Math.max(1, starts), deadlineNanos));
+    }
+
+    // Splits the range of starts in halves until one start is left, then keeps the shorter result
+    private class Search extends RecursiveTask<Route> {
+
+        private final int from;
+        private final int to;
+        private final long deadlineNanos;
+
+        Search(int from, int to, long deadlineNanos) {
+            this.from = from;
+            this.to = to;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        protected Route compute() {
+            if (to - from == 1) {
+                return search(from, deadlineNanos);
+            }
+            int middle = (from + to) >>> 1;
+            Search right = new Search(middle, to, deadlineNanos);
+            right.fork();
+            Route left = new Search(from, middle, deadlineNanos).compute();
+            Route other = right.join();
+            Route best = other.distanceKm() < left.distanceKm() - EPSILON ? other : left;
+            return new Route(best.order(), best.distanceKm(), left.complete() && other.complete());
+        }
+    }
+
+    private Route search(int seed, long deadlineNanos) {
+        Random random = seed == 0 ? null : new Random(seed);
+        int first = fixedStart || random == null ? 0 : random.nextInt(size);
+        int[] order = nearestNeighbour(first, random);
+        boolean complete = false;
+        while (System.nanoTime() < deadlineNanos) {
+            boolean improved = twoOpt(order, deadlineNanos);
+            improved |= orOpt(order, deadlineNanos);
+            if (!improved) {
+                complete = true;
+                break;
+            }
+        }
+        return new Route(order, length(order), complete);
+    }
+
+    private int[] nearestNeighbour(int first, Random random) {
+        int[] order = new int[size];
+        boolean[] visited = new boolean[size];
+        order[0] = first;
+        visited[first] = true;
+        for (int position = 1; position < size; position++) {
+            int from = order[position - 1] * size;
+            int nearest = -1;
+            int second = -1;
+            for (int stop = 0; stop < size; stop++) {
+                if (visited[stop]) {
+                    continue;
+                }
+                if (nearest < 0 || distances[from + stop] < distances[from + nearest]) {
+                    second = nearest;
+                    nearest = stop;
+                } else if (second < 0 || distances[from + stop] < distances[from + second]) {
+                    second = stop;
+                }
+            }
+            int next = random != null && second >= 0 && random.nextBoolean() ? second : nearest;
+            order[position] = next;
+            visited[next] = true;
+        }
+        return order;
+    }
+
+    // Distance between two stops, where -1 is the open end before the start or after the finish
+    private double distance(int from, int to) {
+        return from < 0 || to < 0 ? 0 : distances[from * size + to];
+    }
+
+    private static int at(int[] order, int position) {
+        return position < 0 || position >= order.length ? -1 : order[position];
+    }
+
+    /**
+     * Reverses order[i + 1..j] wherever that shortens the path. Edge i joins positions i and
+     * i + 1; i = -1 and j = n - 1 are the open ends, so the start or finish can move too.
+     */
+    private boolean twoOpt(int[] order, long deadlineNanos) {
+        boolean improved = false;
+        int n = order.length;
+        for (int i = fixedStart ? 0 : -1; i < n - 2; i++) {
+            if (System.nanoTime() >= deadlineNanos) {
+                return improved;
+            }
+            int a = at(order, i);
+            int b = order[i + 1];
+            for (int j = i + 2; j < n; j++) {
+                int c = order[j];
+                int d = at(order, j + 1);
+                double delta = distance(a, c) + distance(b, d) - distance(a, b) - distance(c, d);
+                if (delta < -EPSILON) {
+                    reverse(order, i + 1, j);
+                    b = order[i + 1];
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Moves a run of up to MAX_SEGMENT stops, as is or reversed, to the place in the path
+     * where it adds the least distance, whenever that shortens the path.
+     */
+    private boolean orOpt(int[] order, long deadlineNanos) {
+        boolean improved = false;
+        int n = order.length;
+        int[] moved = new int[n];
+        for (int length = 1; length <= MAX_SEGMENT && length < n; length++) {
+            for (int start = fixedStart ? 1 : 0; start + length <= n; start++) {
+                if (System.nanoTime() >= deadlineNanos) {
+                    return improved;
+                }
+                int end = start + length - 1;
+                int before = at(order, start - 1);
+                int after = at(order, end + 1);
+                int head = order[start];
+                int tail = order[end];
+                double removed = distance(before, head) + distance(tail, after) - distance(before, after);
+
+                int bestEdge = Integer.MIN_VALUE;
+                boolean bestReversed = false;
+                double bestDelta = -EPSILON;
+                // Edge q joins positions q and q + 1; edges touching the run are skipped
+                for (int q = fixedStart ? 0 : -1; q < n; q++) {
+                    if (q >= start - 1 && q <= end) {
+                        continue;
+                    }
+                    int x = at(order, q);
+                    int y = at(order, q + 1);
+                    double base = distance(x, y);
+                    double forward = distance(x, head) + distance(tail, y) - base - removed;
+                    double backward = distance(x, tail) + distance(head, y) - base - removed;
+                    if (forward < bestDelta) {
+                        bestDelta = forward;
+                        bestEdge = q;
+                        bestReversed = false;
+                    }
+                    if (backward < bestDelta) {
+                        bestDelta = backward;
+                        bestEdge = q;
+                        bestReversed = true;
+                    }
+                }
+                if (bestEdge != Integer.MIN_VALUE) {
+                    move(order, moved, start, end, bestEdge, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Rebuilds the path with order[start..end] placed after position edge (before everything for -1)
+    private static void move(int[] order, int[] buffer, int start, int end, int edge, boolean reversed) {
+        int next = 0;
+        if (edge == -1) {
+            next = copyRun(order, buffer, next, start, end, reversed);
+        }
+        for (int position = 0; position < order.length; position++) {
+            if (position >= start && position <= end) {
+                continue;
+            }
+            buffer[next++] = order[position];
+            if (position == edge) {
+                next = copyRun(order, buffer, next, start, end, reversed);
+            }
+        }
+        System.arraycopy(buffer, 0, order, 0, order.length);
+    }
+
+    private static int copyRun(int[] order, int[] buffer, int next, int start, int end, boolean reversed) {
+        for (int k = 0; k <= end - start; k++) {
+            buffer[next++] = order[reversed ? end - k : start + k];
+        }
+        return next;
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        while (from < to) {
+            int swap = order[from];
+            order[from++] = order[to];
+            order[to--] = swap;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.RouteDto;
+import com.pv.trip_planner.dto.RouteSegmentDto;
+import com.pv.trip_planner.dto.RouteStopDto;
+import com.pv.trip_planner.dto.TripInclude;
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.Destination;
+import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.repositories.TripRepository;
+import com.pv.trip_planner.security.SecurityUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Collectors;
+
+/**
+ * Proposes a visiting order for a trip's destinations, or for the activities of each day of
+ * its itinerary, that keeps the total distance short. Nothing is saved; the client applies
+ * the order it accepts. Activities never move between days: items covering the same dates
+ * form one segment, and each segment is optimized on its own.
+ */
+@Service
+public class RouteService {
+
+    private static final Comparator<Destination> BY_ARRIVAL = Comparator
+            .comparing(Destination::getArrivalDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Destination::getId);
+
+    private static final Comparator<ItineraryItem> BY_DATE = Comparator
+            .comparing(ItineraryItem::getStartDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ItineraryItem::getId);
+
+    private static final Comparator<Activity> BY_START_TIME = Comparator
+            .comparing(Activity::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Activity::getId);
+
+    // Stops visited in one go, in their current order; fixedStart keeps the first located stop first
+    private record Segment(LocalDate startDate, LocalDate endDate, List<RouteStopDto> stops, boolean fixedStart) {
+    }
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripGraphLoader tripGraphLoader;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private GeocodingService geocodingService;
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.route.time-budget-ms:500}")
+    private long timeBudgetMs;
+
+    @Value("${app.route.starts:8}")
+    private int starts;
+
+    // 0 uses one thread per available processor
+    @Value("${app.route.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.route.max-stops:2000}")
+    private int maxStops;
+
+    private ForkJoinPool pool;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("route-optimizer-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Proposes an order for the trip's activities (per day) or destinations. The trip is read
+     * first and the search runs after the transaction ends, within app.route.time-budget-ms
+     * shared across the segments by their size.
+     */
+    public RouteDto proposeRoute(Long tripId, String stops) {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        String kind = stops == null || stops.isBlank() ? "activities" : stops.trim().toLowerCase();
+        if (!kind.equals("activities") && !kind.equals("destinations")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "stops must be activities or destinations");
+        }
+        tripService.checkTripAccess(currentUser, tripId);
+
+        List<Segment> segments = readOnlyTransaction.execute(status -> {
+            Trip trip = tripRepository.findWithOwnerById(tripId)
+                    .orElseThrow(() -> new RuntimeException("Trip not found"));
+            return kind.equals("destinations") ? destinationSegments(trip) : activitySegments(trip);
+        });
+        int stopCount = segments.stream().mapToInt(segment -> segment.stops().size()).sum();
+        if (stopCount > maxStops) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Trip has " + stopCount + " stops; routes are proposed for at most " + maxStops);
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + timeBudgetMs * 1_000_000;
+        // Searching takes roughly quadratic time in the stops, so budget shares follow n^2
+        long remainingWeight = segments.stream().mapToLong(segment -> weight(segment.stops())).sum();
+
+        List<RouteSegmentDto> routed = new ArrayList<>();
+        double distance = 0;
+        double currentDistance = 0;
+        boolean complete = true;
+        for (Segment segment : segments) {
+            List<RouteStopDto> located = segment.stops().stream()
+                    .filter(stop -> stop.getLatitude() != null)
+                    .collect(Collectors.toList());
+            double[] latitudes = located.stream().mapToDouble(RouteStopDto::getLatitude).toArray();
+            double[] longitudes = located.stream().mapToDouble(RouteStopDto::getLongitude).toArray();
+            RouteOptimizer optimizer = new RouteOptimizer(latitudes, longitudes, segment.fixedStart());
+
+            long weight = weight(located);
+            long now = System.nanoTime();
+            long share = remainingWeight > 0 ? Math.max(0, deadline - now) * weight / remainingWeight : 0;
+            remainingWeight -= weight;
+            RouteOptimizer.Route route = optimizer.solve(starts, now + share, pool);
+
+            int[] current = new int[located.size()];
+            for (int i = 0; i < current.length; i++) {
+                current[i] = i;
+            }
+            double segmentCurrent = optimizer.length(current);
+            // Never propose something longer than what the user already has
+            int[] order = route.distanceKm() < segmentCurrent ? route.order() : current;
+            double segmentDistance = Math.min(route.distanceKm(), segmentCurrent);
+
+            List<RouteStopDto> ordered = new ArrayList<>();
+            for (int position = 0; position < order.length; position++) {
+                RouteStopDto stop = located.get(order[position]);
+                if (position > 0) {
+                    RouteStopDto previous = ordered.get(position - 1);
+                    stop.setLegKm(round(GeoGridIndex.haversineKm(previous.getLatitude(), previous.getLongitude(),
+                            stop.getLatitude(), stop.getLongitude())));
+                }
+                ordered.add(stop);
+            }
+            routed.add(RouteSegmentDto.builder()
+                    .startDate(segment.startDate())
+                    .endDate(segment.endDate())
+                    .distanceKm(round(segmentDistance))
+                    .currentDistanceKm(round(segmentCurrent))
+                    .stops(ordered)
+                    .unlocated(segment.stops().stream()
+                            .filter(stop -> stop.getLatitude() == null)
+                            .collect(Collectors.toList()))
+                    .build());
+            distance += segmentDistance;
+            currentDistance += segmentCurrent;
+            complete &= route.complete();
+        }
+
+        return RouteDto.builder()
+                .tripId(tripId)
+                .stops(kind)
+                .distanceKm(round(distance))
+                .currentDistanceKm(round(currentDistance))
+                .complete(complete)
+                .segments(routed)
+                .tookMillis((System.nanoTime() - start) / 1_000_000)
+                .build();
+    }
+
+    // One segment; when arrival dates are known the traveller starts at the earliest one
+    private List<Segment> destinationSegments(Trip trip) {
+        List<Destination> destinations = tripGraphLoader.loadGraph(List.of(trip), EnumSet.of(TripInclude.DESTINATIONS))
+                .get(0).getDestinations().stream()
+                .sorted(BY_ARRIVAL)
+                .toList();
+        List<RouteStopDto> stops = new ArrayList<>();
+        for (Destination destination : destinations) {
+            String location = destination.getLocation() != null ? destination.getLocation() : destination.getName();
+            stops.add(stop(GeoGridIndex.Kind.DESTINATION, destination.getId(), null, destination.getName(), location,
+                    destination.getLatitude(), destination.getLongitude()));
+        }
+        // Dated destinations sort first, so the earliest arrival is the first stop
+        boolean fixedStart = !stops.isEmpty() && destinations.get(0).getArrivalDate() != null
+                && stops.get(0).getLatitude() != null;
+        return List.of(new Segment(null, null, stops, fixedStart));
+    }
+
+    // One segment per distinct date range, in date order; undated items are a segment each
+    private List<Segment> activitySegments(Trip trip) {
+        List<ItineraryItem> items = tripGraphLoader.loadGraph(List.of(trip), EnumSet.of(TripInclude.ITINERARY))
+                .get(0).getItinerary().stream()
+                .sorted(BY_DATE)
+                .toList();
+        Map<Object, List<ItineraryItem>> byDates = new LinkedHashMap<>();
+        for (ItineraryItem item : items) {
+            Object key = item.getStartDate() != null
+                    ? List.of(item.getStartDate(), Objects.requireNonNullElse(item.getEndDate(), item.getStartDate()))
+                    : item.getId();
+            byDates.computeIfAbsent(key, ignored -> new ArrayList<>()).add(item);
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        for (List<ItineraryItem> group : byDates.values()) {
+            List<RouteStopDto> stops = new ArrayList<>();
+            for (ItineraryItem item : group) {
+                if (item.getActivities() == null) {
+                    continue;
+                }
+                for (Activity activity : item.getActivities().stream().sorted(BY_START_TIME).toList()) {
+                    stops.add(stop(GeoGridIndex.Kind.ACTIVITY, activity.getId(), item.getId(), activity.getTitle(),
+                            activity.getLocation(), activity.getLatitude(), activity.getLongitude()));
+                }
+            }
+            if (!stops.isEmpty()) {
+                ItineraryItem first = group.get(0);
+                LocalDate endDate = first.getStartDate() != null
+                        ? Objects.requireNonNullElse(first.getEndDate(), first.getStartDate())
+                        : first.getEndDate();
+                segments.add(new Segment(first.getStartDate(), endDate, stops, false));
+            }
+        }
+        return segments;
+    }
+
+    // Rows stored without coordinates are located like the geo index does
+    private RouteStopDto stop(GeoGridIndex.Kind type, Long id, Long itineraryItemId, String name, String location,
+                              Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            GeocodingService.Coordinates coordinates = geocodingService.geocode(location).orElse(null);
+            latitude = coordinates != null ? coordinates.latitude() : null;
+            longitude = coordinates != null ? coordinates.longitude() : null;
+        }
+        return RouteStopDto.builder()
+                .type(type)
+                .id(id)
+                .itineraryItemId(itineraryItemId)
+                .name(name)
+                .location(location)
+                .latitude(latitude)
+                .longitude(longitude)
+                .build();
+    }
+
+    private static long weight(List<RouteStopDto> stops) {
+        long located = stops.stream().filter(stop -> stop.getLatitude() != null).count();
+        return located > 2 ? located * located : 0;
+    }
+
+    private static double round(double km) {
+        return Math.round(km * 1000) / 1000.0;
+    }
+}
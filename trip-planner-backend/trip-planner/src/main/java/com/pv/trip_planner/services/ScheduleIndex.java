@@ -0,0 +1,375 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory schedule of the timed activities of every trip, for finding overlaps. An activity
+ * takes place on its itinerary item's start date, from its start to its end time (an end
+ * before the start runs past midnight; no end is an instant).
+ *
+ * Each trip keeps its slots sorted by start together with its longest slot, so the slots
+ * overlapping [start, end) are exactly those starting in [start - longest, end) that end
+ * after start: one range lookup per trip instead of a scan. Whole trips are replaced from
+ * TripIndexUpdater; single activities are added, moved and removed as they are written.
+ */
+public class ScheduleIndex {
+
+    // start and end are seconds since the epoch in local time (see toDateTime); trip dates carry no zone
+    public record Slot(Long activityId, Long tripId, Long itineraryItemId, String title, long start, long end) {
+    }
+
+    public record Overlap(Slot slot, Slot other) {
+
+        public long start() {
+            return Math.max(slot.start(), other.start());
+        }
+
+        public long end() {
+            return Math.min(slot.end(), other.end());
+        }
+    }
+
+    public record TripDates(Long tripId, String title, LocalDate startDate, LocalDate endDate) {
+    }
+
+    // Two trips of the same member whose dates overlap, from the first to the last shared day
+    public record DoubleBooking(TripDates trip, TripDates other, LocalDate startDate, LocalDate endDate) {
+    }
+
+    /**
+     * What the index keeps of one trip. The version is the trip's change counter, so an
+     * older read of the trip can never replace a newer one.
+     */
+    public record Schedule(TripDates dates, long version, Set<Long> memberIds, Map<Long, LocalDate> itemDates,
+                           List<Slot> slots) {
+
+        /**
+         * Builds the schedule from a trip whose owner, collaborators and itinerary with
+         * activities are loaded.
+         */
+        public static Schedule of(Trip trip) {
+            Map<Long, LocalDate> itemDates = new HashMap<>();
+            List<Slot> slots = new ArrayList<>();
+            if (trip.getItinerary() != null) {
+                for (ItineraryItem item : trip.getItinerary()) {
+                    itemDates.put(item.getId(), item.getStartDate());
+                    for (Activity activity : item.getActivities() != null ? item.getActivities() : List.<Activity>of()) {
+                        Slot slot = slot(activity.getId(), trip.getId(), item.getId(), item.getStartDate(),
+                                activity.getTitle(), activity.getStartTime(), activity.getEndTime());
+                        if (slot != null) {
+                            slots.add(slot);
+                        }
+                    }
+                }
+            }
+
+            Set<Long> memberIds = new HashSet<>();
+            memberIds.add(trip.getOwner().getId());
+            if (trip.getCollaborators() != null) {
+                for (User collaborator : trip.getCollaborators()) {
+                    memberIds.add(collaborator.getId());
+                }
+            }
+
+            TripDates dates = new TripDates(trip.getId(), trip.getTitle(), trip.getStartDate(), trip.getEndDate());
+            return new Schedule(dates, trip.getVersion() != null ? trip.getVersion() : 0L, Set.copyOf(memberIds),
+                    itemDates, List.copyOf(slots));
+        }
+    }
+
+    /**
+     * The slot of an activity, or null if it has no start time or its item has no date.
+     */
+    public static Slot slot(Long activityId, Long tripId, Long itineraryItemId, LocalDate date, String title,
+                            LocalTime startTime, LocalTime endTime) {
+        if (date == null || startTime == null) {
+            return null;
+        }
+        long day = date.toEpochDay() * 86_400;
+        long start = day + startTime.toSecondOfDay();
+        long end = endTime == null ? start
+                : endTime.isBefore(startTime) ? day + 86_400 + endTime.toSecondOfDay()
+                : day + endTime.toSecondOfDay();
+        return new Slot(activityId, tripId, itineraryItemId, title, start, end);
+    }
+
+    public static LocalDateTime toDateTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private static final Comparator<Slot> BY_START = Comparator.comparingLong(Slot::start)
+            .thenComparing(Slot::activityId);
+
+    // Mutable state of one trip, guarded by the index lock
+    private static final class TripSchedule {
+        final Schedule schedule;
+        final NavigableSet<Slot> slots = new TreeSet<>(BY_START);
+        final Map<Long, LocalDate> itemDates;
+        // Neither shrinks until the trip is replaced; a wider bound only costs a few extra candidates
+        long longest;
+        long latestReach = Long.MIN_VALUE;
+
+        TripSchedule(Schedule schedule) {
+            this.schedule = schedule;
+            this.itemDates = new HashMap<>(schedule.itemDates());
+        }
+
+        void add(Slot slot) {
+            slots.add(slot);
+            longest = Math.max(longest, slot.end() - slot.start());
+            latestReach = Math.max(latestReach, reach(slot));
+        }
+    }
+
+    private final Map<Long, TripSchedule> trips = new HashMap<>();
+    private final Map<Long, Slot> slotsByActivity = new HashMap<>();
+    // Itinerary item id to its trip id
+    private final Map<Long, Long> tripsByItem = new HashMap<>();
+    // Member id to the ids of the trips they own or collaborate on
+    private final Map<Long, Set<Long>> tripsByMember = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds or replaces the trip's schedule, unless the index already holds a newer version.
+     */
+    public boolean put(Schedule schedule) {
+        lock.writeLock().lock();
+        try {
+            Long tripId = schedule.dates().tripId();
+            TripSchedule existing = trips.get(tripId);
+            if (existing != null) {
+                if (existing.schedule.version() > schedule.version()) {
+                    return false;
+                }
+                unindex(existing);
+            }
+            TripSchedule trip = new TripSchedule(schedule);
+            trips.put(tripId, trip);
+            for (Long memberId : schedule.memberIds()) {
+                tripsByMember.computeIfAbsent(memberId, key -> new HashSet<>()).add(tripId);
+            }
+            schedule.itemDates().keySet().forEach(itemId -> tripsByItem.put(itemId, tripId));
+            for (Slot slot : schedule.slots()) {
+                trip.add(slot);
+                slotsByActivity.put(slot.activityId(), slot);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long tripId) {
+        lock.writeLock().lock();
+        try {
+            TripSchedule existing = trips.remove(tripId);
+            if (existing != null) {
+                unindex(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The slot an activity of the item would take, or null if it has no start time, the
+     * item has no date, or the item isn't in an indexed trip.
+     */
+    public Slot slotFor(Long itineraryItemId, Long activityId, String title, LocalTime startTime, LocalTime endTime) {
+        lock.readLock().lock();
+        try {
+            Long tripId = tripsByItem.get(itineraryItemId);
+            if (tripId == null) {
+                return null;
+            }
+            LocalDate date = trips.get(tripId).itemDates.get(itineraryItemId);
+            return slot(activityId, tripId, itineraryItemId, date, title, startTime, endTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean containsItem(Long itineraryItemId) {
+        lock.readLock().lock();
+        try {
+            return tripsByItem.containsKey(itineraryItemId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Places one activity, replacing its previous slot; a null slot only removes it.
+     */
+    public void upsert(Long activityId, Slot slot) {
+        lock.writeLock().lock();
+        try {
+            Slot previous = slotsByActivity.remove(activityId);
+            if (previous != null) {
+                TripSchedule trip = trips.get(previous.tripId());
+                if (trip != null) {
+                    trip.slots.remove(previous);
+                }
+            }
+            if (slot != null) {
+                TripSchedule trip = trips.get(slot.tripId());
+                if (trip != null) {
+                    trip.add(slot);
+                    slotsByActivity.put(activityId, slot);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Slots overlapping the given one in the trips the member is on, the slot's own activity
+     * excepted, earliest first. Only the member's trips are searched, so the result never
+     * names activities of trips they can't see.
+     */
+    public List<Overlap> overlapping(Slot slot, Long memberId) {
+        List<Overlap> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long tripId : tripsByMember.getOrDefault(memberId, Set.of())) {
+                TripSchedule trip = trips.get(tripId);
+                // Most of a member's trips are on other dates
+                if (trip.slots.isEmpty() || slot.start() >= trip.latestReach
+                        || reach(slot) <= trip.slots.first().start()) {
+                    continue;
+                }
+                Slot from = new Slot(Long.MIN_VALUE, null, null, null, slot.start() - trip.longest, 0);
+                Slot to = new Slot(Long.MIN_VALUE, null, null, null, reach(slot), 0);
+                for (Slot other : trip.slots.subSet(from, true, to, false)) {
+                    if (!other.activityId().equals(slot.activityId()) && overlaps(slot, other)) {
+                        found.add(new Overlap(slot, other));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        found.sort(Comparator.comparingLong(Overlap::start).thenComparing(overlap -> overlap.other().activityId()));
+        return found;
+    }
+
+    /**
+     * Every pair of overlapping slots across the member's trips, earliest first. One sweep
+     * over the slots in start order, keeping the ones still running in a heap by end time.
+     */
+    public List<Overlap> overlaps(Long memberId) {
+        List<Slot> slots = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long tripId : tripsByMember.getOrDefault(memberId, Set.of())) {
+                slots.addAll(trips.get(tripId).slots);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        slots.sort(BY_START);
+
+        List<Overlap> found = new ArrayList<>();
+        PriorityQueue<Slot> running = new PriorityQueue<>(Comparator.comparingLong(ScheduleIndex::reach));
+        for (Slot slot : slots) {
+            while (!running.isEmpty() && reach(running.peek()) <= slot.start()) {
+                running.poll();
+            }
+            for (Slot other : running) {
+                if (overlaps(slot, other)) {
+                    found.add(new Overlap(other, slot));
+                }
+            }
+            running.add(slot);
+        }
+        found.sort(Comparator.comparingLong(Overlap::start)
+                .thenComparing(overlap -> overlap.slot().activityId())
+                .thenComparing(overlap -> overlap.other().activityId()));
+        return found;
+    }
+
+    /**
+     * Pairs of the member's trips whose dates overlap by more than a shared travel day, i.e.
+     * one starts before the other ends.
+     */
+    public List<DoubleBooking> doubleBookings(Long memberId) {
+        List<TripDates> dated = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long tripId : tripsByMember.getOrDefault(memberId, Set.of())) {
+                TripDates dates = trips.get(tripId).schedule.dates();
+                if (dates.startDate() != null) {
+                    dated.add(dates);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        dated.sort(Comparator.comparing(TripDates::startDate).thenComparing(TripDates::tripId));
+
+        List<DoubleBooking> found = new ArrayList<>();
+        for (int i = 0; i < dated.size(); i++) {
+            TripDates trip = dated.get(i);
+            LocalDate end = endDate(trip);
+            for (int j = i + 1; j < dated.size() && dated.get(j).startDate().isBefore(end); j++) {
+                TripDates other = dated.get(j);
+                LocalDate otherEnd = endDate(other);
+                LocalDate lastShared = end.isBefore(otherEnd) ? end : otherEnd;
+                found.add(new DoubleBooking(trip, other, other.startDate(), lastShared));
+            }
+        }
+        return found;
+    }
+
+    private static LocalDate endDate(TripDates dates) {
+        return dates.endDate() != null && !dates.endDate().isBefore(dates.startDate())
+                ? dates.endDate() : dates.startDate();
+    }
+
+    // Half-open intervals, with an instant counting as one second so it overlaps what it falls inside
+    private static boolean overlaps(Slot slot, Slot other) {
+        return slot.start() < reach(other) && other.start() < reach(slot);
+    }
+
+    private static long reach(Slot slot) {
+        return Math.max(slot.end(), slot.start() + 1);
+    }
+
+    private void unindex(TripSchedule trip) {
+        Long tripId = trip.schedule.dates().tripId();
+        for (Long memberId : trip.schedule.memberIds()) {
+            Set<Long> memberTrips = tripsByMember.get(memberId);
+            if (memberTrips != null) {
+                memberTrips.remove(tripId);
+                if (memberTrips.isEmpty()) {
+                    tripsByMember.remove(memberId);
+                }
+            }
+        }
+        trip.itemDates.keySet().forEach(itemId -> tripsByItem.remove(itemId, tripId));
+        for (Slot slot : trip.slots) {
+            slotsByActivity.remove(slot.activityId(), slot);
+        }
+    }
+}
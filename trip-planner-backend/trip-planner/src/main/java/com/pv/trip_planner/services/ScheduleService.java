@@ -0,0 +1,120 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.ScheduleConflictDto;
+import com.pv.trip_planner.dto.ScheduleConflictsDto;
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.repositories.ItineraryRepository;
+import com.pv.trip_planner.repositories.TripRepository;
+import com.pv.trip_planner.security.SecurityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Schedule conflicts: activities at the same time, within a trip or across the trips a user
+ * owns or collaborates on, and trips on the same dates. Answered from ScheduleIndex without
+ * touching the database. TripIndexUpdater builds the index at startup and reloads a trip
+ * after every write; activity writes also update it directly, so the next check sees them
+ * without waiting for the reload.
+ */
+@Service
+public class ScheduleService implements TripIndex {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ItineraryRepository itineraryRepository;
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ScheduleIndex index = new ScheduleIndex();
+
+    @Override
+    public void put(Trip trip) {
+        index.put(ScheduleIndex.Schedule.of(trip));
+    }
+
+    @Override
+    public void remove(Long tripId) {
+        index.remove(tripId);
+    }
+
+    /**
+     * Called with an activity just saved to the item: returns the activities it overlaps in
+     * the trips the current user is on, to warn the writer. Anonymous writers get none. The
+     * index takes the new slot once the write commits.
+     */
+    public List<ScheduleConflictDto> activityWritten(Long itineraryItemId, Activity activity) {
+        ScheduleIndex.Slot slot = slotFor(itineraryItemId, activity);
+        eventPublisher.publishEvent(new ActivityChangedEvent(activity.getId(), slot));
+        User currentUser = securityUtils.getCurrentUser();
+        if (slot == null || currentUser == null) {
+            return List.of();
+        }
+        return index.overlapping(slot, currentUser.getId()).stream()
+                .map(ScheduleConflictDto::fromOverlap)
+                .collect(Collectors.toList());
+    }
+
+    public void activityDeleted(Long activityId) {
+        eventPublisher.publishEvent(new ActivityChangedEvent(activityId, null));
+    }
+
+    @TransactionalEventListener
+    public void onActivityChanged(ActivityChangedEvent event) {
+        index.upsert(event.activityId(), event.slot());
+    }
+
+    /**
+     * Overlapping activities and double-booked dates across the current user's trips.
+     */
+    public ScheduleConflictsDto getConflictsForCurrentUser() {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+
+        long start = System.nanoTime();
+        List<ScheduleConflictDto> overlaps = index.overlaps(currentUser.getId()).stream()
+                .map(ScheduleConflictDto::fromOverlap)
+                .collect(Collectors.toList());
+        List<ScheduleConflictDto> doubleBookings = index.doubleBookings(currentUser.getId()).stream()
+                .map(ScheduleConflictDto::fromDoubleBooking)
+                .collect(Collectors.toList());
+
+        return ScheduleConflictsDto.builder()
+                .overlaps(overlaps)
+                .doubleBookings(doubleBookings)
+                .tookMicros((System.nanoTime() - start) / 1_000)
+                .build();
+    }
+
+    // An item added since its trip was last indexed is looked up once in the database
+    private ScheduleIndex.Slot slotFor(Long itineraryItemId, Activity activity) {
+        if (activity.getStartTime() == null) {
+            return null;
+        }
+        if (index.containsItem(itineraryItemId)) {
+            return index.slotFor(itineraryItemId, activity.getId(), activity.getTitle(),
+                    activity.getStartTime(), activity.getEndTime());
+        }
+        Long tripId = tripRepository.findTripIdByItineraryItemId(itineraryItemId).orElse(null);
+        if (tripId == null) {
+            return null;
+        }
+        return ScheduleIndex.slot(activity.getId(), tripId, itineraryItemId,
+                itineraryRepository.findStartDateById(itineraryItemId).orElse(null),
+                activity.getTitle(), activity.getStartTime(), activity.getEndTime());
+    }
+}
@@ -0,0 +1,9 @@
+package com.pv.trip_planner.services;
+
+/**
+ * Published by ChangeFeedService for every recorded write to a trip or its children, inside
+ * the writing transaction. Listeners that read the trip back should use
+ * {@code @TransactionalEventListener} so they only see committed data.
+ */
+public record TripChangedEvent(Long tripId) {
+}
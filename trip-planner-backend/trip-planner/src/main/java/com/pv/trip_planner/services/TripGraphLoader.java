@@ -0,0 +1,82 @@
+package com.pv.trip_planner.services;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.pv.trip_planner.dto.TripInclude;
+import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.repositories.ItineraryRepository;
+import com.pv.trip_planner.repositories.TripRepository;
+
+/**
+ * Initializes the associations walked by TripResponseDto.fromTrip for a batch of trips
+ * with one query per association, so building the DTOs costs the same number of
+ * statements for one trip or for hundreds.
+ *
+ * The trips must be managed by the caller's persistence context, i.e. loaded inside
+ * the same transaction.
+ */
+@Service
+public class TripGraphLoader {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private ItineraryRepository itineraryRepository;
+
+    @Transactional(readOnly = true)
+    public List<Trip> loadGraph(List<Trip> trips) {
+        return loadGraph(trips, TripInclude.ALL);
+    }
+
+    /**
+     * Initializes only the selected collections; the others stay uninitialized proxies and
+     * must not be touched (TripResponseDto.fromTrip with the same selection skips them).
+     */
+    @Transactional(readOnly = true)
+    public List<Trip> loadGraph(List<Trip> trips, Set<TripInclude> include) {
+        if (trips.isEmpty() || include.isEmpty()) {
+            return trips;
+        }
+
+        List<Long> tripIds = trips.stream()
+                .map(Trip::getId)
+                .distinct()
+                .toList();
+
+        // Bags cannot be join-fetched together, so each collection gets its own query
+        if (include.contains(TripInclude.COLLABORATORS)) {
+            tripRepository.fetchCollaborators(tripIds);
+        }
+        if (include.contains(TripInclude.BUDGET_ITEMS)) {
+            tripRepository.fetchBudgetItems(tripIds);
+        }
+        if (include.contains(TripInclude.PACKING_LIST)) {
+            tripRepository.fetchPackingList(tripIds);
+        }
+        if (include.contains(TripInclude.DESTINATIONS)) {
+            tripRepository.fetchDestinations(tripIds);
+        }
+        if (!include.contains(TripInclude.ITINERARY)) {
+            return trips;
+        }
+
+        tripRepository.fetchItinerary(tripIds);
+        List<Long> itineraryItemIds = trips.stream()
+                .flatMap(trip -> trip.getItinerary().stream())
+                .map(ItineraryItem::getId)
+                .distinct()
+                .toList();
+        if (!itineraryItemIds.isEmpty()) {
+            itineraryRepository.fetchActivities(itineraryItemIds);
+        }
+
+        return trips;
+    }
+}
@@ -0,0 +1,9 @@
+package com.pv.trip_planner.services;
+
+/**
+ * Published by TripService when a stored file becomes a trip's image, inside the writing
+ * transaction. Once it commits, ImageVariantService queues the variants (so the worker never
+ * reads a trip that isn't there yet) and TripService releases the image it replaced, if any.
+ */
+public record TripImageStoredEvent(Long tripId, String filename, String previousFilename) {
+}
@@ -0,0 +1,19 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.entities.Trip;
+
+/**
+ * An in-memory index over whole trips, kept current by TripIndexUpdater. Implementations
+ * must be thread-safe and must ignore a trip older (by version) than the one they hold,
+ * since a startup batch and an update after a write may load the same trip.
+ */
+public interface TripIndex {
+
+    /**
+     * Adds or replaces the trip. Its owner, collaborators, itinerary with activities and
+     * destinations are loaded; the entity must not be kept, it is detached right after.
+     */
+    void put(Trip trip);
+
+    void remove(Long tripId);
+}
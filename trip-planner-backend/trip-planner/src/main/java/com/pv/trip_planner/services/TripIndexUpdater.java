@@ -0,0 +1,158 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.TripInclude;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.repositories.TripRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Feeds every TripIndex (search, geo, schedule, calendar feeds). At startup trips are loaded in batches on several
+ * threads, each trip graph read once and handed to all indexes. Afterwards TripChangedEvents
+ * keep them current: once a write commits, the trip is re-read and replaced on a background
+ * thread, so writes don't wait for indexing.
+ */
+@Service
+@Order(2)
+public class TripIndexUpdater implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripIndexUpdater.class);
+
+    // What the indexes are built from
+    private static final Set<TripInclude> INDEXED = EnumSet.of(
+            TripInclude.COLLABORATORS, TripInclude.ITINERARY, TripInclude.DESTINATIONS);
+
+    @Autowired
+    private List<TripIndex> indexes;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripGraphLoader tripGraphLoader;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.indexes.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    @Value("${app.indexes.rebuild-batch-size:200}")
+    private int rebuildBatchSize;
+
+    // Trips queued for reindexing; a trip changed again before its turn is queued only once
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService updater;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        updater = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trip-index-updater");
+            thread.setDaemon(true);
+            return thread;
+        });
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        updater.shutdownNow();
+    }
+
+    @TransactionalEventListener
+    public void onTripChanged(TripChangedEvent event) {
+        Long tripId = event.tripId();
+        if (pending.add(tripId)) {
+            updater.execute(() -> {
+                // Removed before reading, so a write that commits meanwhile queues it again
+                pending.remove(tripId);
+                reindex(tripId);
+            });
+        }
+    }
+
+    private void reindex(Long tripId) {
+        try {
+            int found = readOnlyTransaction.execute(status -> load(List.of(tripId)));
+            if (found == 0) {
+                indexes.forEach(index -> index.remove(tripId));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not reindex trip {}: {}", tripId, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the indexes from the database: trip ids are split into batches that are
+     * loaded in parallel, each in its own read-only transaction.
+     */
+    @Override
+    public void run(String... args) {
+        long start = System.nanoTime();
+        List<Long> tripIds = readOnlyTransaction.execute(status -> {
+            try (Stream<Long> ids = tripRepository.streamAllIds()) {
+                return ids.toList();
+            }
+        });
+
+        AtomicInteger indexed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, rebuildThreads));
+        try {
+            List<Future<?>> batches = new ArrayList<>();
+            for (int from = 0; from < tripIds.size(); from += rebuildBatchSize) {
+                List<Long> batch = tripIds.subList(from, Math.min(from + rebuildBatchSize, tripIds.size()));
+                // A newer version indexed from a concurrent write is kept by the indexes
+                batches.add(pool.submit(() -> indexed.addAndGet(readOnlyTransaction.execute(status -> load(batch)))));
+            }
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Trip index rebuild failed; only trips written from now on will be indexed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        logger.info("Indexed {} trips in {} ms", indexed.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Puts each trip found into every index and returns how many were found
+    private int load(List<Long> tripIds) {
+        List<Trip> trips = tripGraphLoader.loadGraph(tripRepository.findAllWithOwnerByIdIn(tripIds), INDEXED);
+        for (Trip trip : trips) {
+            indexes.forEach(index -> index.put(trip));
+        }
+        entityManager.clear();
+        return trips.size();
+    }
+}
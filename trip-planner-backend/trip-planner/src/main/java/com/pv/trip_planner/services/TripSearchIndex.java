@@ -0,0 +1,367 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.Destination;
+import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over trips and the text of their itinerary items, activities and
+ * destinations. Terms are kept in a sorted map, so a prefix query is one range scan; each
+ * posting records, per trip, the best-weighted field the term occurs in and where.
+ *
+ * A trip is indexed as one document and replaced as a whole. Writers hold the write lock
+ * only for the map updates of one replacement; queries run under the read lock.
+ */
+public class TripSearchIndex {
+
+    // Fields in order of how much a match in them says about the trip
+    public enum Field {
+        TRIP_TITLE(3.0),
+        DESTINATION_NAME(2.5),
+        ITINERARY_TITLE(2.0),
+        ITINERARY_LOCATION(2.0),
+        ACTIVITY_TITLE(1.5),
+        ACTIVITY_LOCATION(1.5),
+        TRIP_DESCRIPTION(1.0),
+        ACTIVITY_DESCRIPTION(0.5);
+
+        private final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    // Where a term was found: the field, the id of the trip/item/activity/destination and its text
+    public record Match(Field field, Long entityId, String text) {
+    }
+
+    // All occurrences of one term in one trip
+    public record Occurrences(double weight, List<Match> matches) {
+    }
+
+    /**
+     * What the index keeps of one trip: the fields results and filters need, who may see it,
+     * and its terms. The version is the trip's change counter, so an older read of the trip
+     * can never replace a newer one.
+     */
+    public record Document(Long tripId, long version, String title, LocalDate startDate, LocalDate endDate,
+                           Set<Long> memberIds, List<String> destinations,
+                           NavigableMap<String, Occurrences> terms) {
+
+        /**
+         * Builds the document from a trip whose owner, collaborators, itinerary with
+         * activities and destinations are loaded.
+         */
+        public static Document of(Trip trip) {
+            Map<String, List<Match>> matches = new HashMap<>();
+            add(matches, Field.TRIP_TITLE, trip.getId(), trip.getTitle());
+            add(matches, Field.TRIP_DESCRIPTION, trip.getId(), trip.getDescription());
+
+            List<String> destinations = new ArrayList<>();
+            for (Destination destination : nullSafe(trip.getDestinations())) {
+                add(matches, Field.DESTINATION_NAME, destination.getId(), destination.getName());
+                if (destination.getName() != null && !destination.getName().isBlank()) {
+                    destinations.add(destination.getName().trim());
+                }
+            }
+            for (ItineraryItem item : nullSafe(trip.getItinerary())) {
+                add(matches, Field.ITINERARY_TITLE, item.getId(), item.getTitle());
+                add(matches, Field.ITINERARY_LOCATION, item.getId(), item.getLocation());
+                for (Activity activity : nullSafe(item.getActivities())) {
+                    add(matches, Field.ACTIVITY_TITLE, activity.getId(), activity.getTitle());
+                    add(matches, Field.ACTIVITY_LOCATION, activity.getId(), activity.getLocation());
+                    add(matches, Field.ACTIVITY_DESCRIPTION, activity.getId(), activity.getDescription());
+                }
+            }
+
+            NavigableMap<String, Occurrences> terms = new TreeMap<>();
+            matches.forEach((term, termMatches) -> {
+                termMatches.sort(Comparator.comparing(match -> match.field().ordinal()));
+                terms.put(term, new Occurrences(termMatches.get(0).field().weight,
+                        List.copyOf(termMatches.subList(0, Math.min(termMatches.size(), MAX_MATCHES_PER_TERM)))));
+            });
+
+            Set<Long> memberIds = new HashSet<>();
+            memberIds.add(trip.getOwner().getId());
+            for (User collaborator : nullSafe(trip.getCollaborators())) {
+                memberIds.add(collaborator.getId());
+            }
+
+            return new Document(trip.getId(), trip.getVersion() != null ? trip.getVersion() : 0L, trip.getTitle(),
+                    trip.getStartDate(), trip.getEndDate(), Set.copyOf(memberIds), List.copyOf(destinations),
+                    Collections.unmodifiableNavigableMap(terms));
+        }
+
+        private static void add(Map<String, List<Match>> matches, Field field, Long entityId, String text) {
+            for (String term : new LinkedHashSet<>(tokenize(text))) {
+                if (term.length() >= MIN_TERM_LENGTH) {
+                    matches.computeIfAbsent(term, key -> new ArrayList<>()).add(new Match(field, entityId, text));
+                }
+            }
+        }
+
+        private static <T> Iterable<T> nullSafe(Iterable<T> items) {
+            return items != null ? items : List.of();
+        }
+    }
+
+    public record Hit(Document document, double score) {
+    }
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_MATCHES_PER_TERM = 3;
+
+    // A completion of a prefix counts for less than the exact word
+    private static final double PREFIX_FACTOR = 0.5;
+
+    // Best score first, then the latest trip
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparing(hit -> hit.document().startDate(), Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(hit -> hit.document().tripId());
+
+    private final NavigableMap<String, Map<Long, Occurrences>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    // Owner and collaborator ids to their trips, for scoring one user's trips only
+    private final Map<Long, Set<Long>> tripsByMember = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Lower-cased words with accents removed, so "Zürich" and "zurich" match. Used for both
+     * documents and queries.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds or replaces the trip's document, unless the index already holds a newer version.
+     */
+    public boolean put(Document document) {
+        lock.writeLock().lock();
+        try {
+            Document existing = documents.get(document.tripId());
+            if (existing != null) {
+                if (existing.version() > document.version()) {
+                    return false;
+                }
+                unindex(existing);
+            }
+            documents.put(document.tripId(), document);
+            for (Long memberId : document.memberIds()) {
+                tripsByMember.computeIfAbsent(memberId, key -> new HashSet<>()).add(document.tripId());
+            }
+            document.terms().forEach((term, occurrences) ->
+                    postings.computeIfAbsent(term, key -> new HashMap<>()).put(document.tripId(), occurrences));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long tripId) {
+        lock.writeLock().lock();
+        try {
+            Document existing = documents.remove(tripId);
+            if (existing != null) {
+                unindex(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Trips matching every query term, as a word or a word prefix, that pass the filter, in
+     * no particular order (see top). A trip scores the sum over the terms of its best field weight times the
+     * term's inverse document frequency, so rare words outweigh common ones.
+     *
+     * With a member id only that user's trips are scored, each against its own term map,
+     * so the cost follows the size of the user's trips rather than of the whole index.
+     * Without one (admins) the postings of the query terms are intersected.
+     */
+    public List<Hit> search(List<String> queryTerms, Long memberId, Predicate<Document> filter) {
+        lock.readLock().lock();
+        try {
+            double[] idf = new double[queryTerms.size()];
+            for (int i = 0; i < idf.length; i++) {
+                long documentFrequency = 0;
+                for (Map<Long, Occurrences> trips : prefixRange(postings, queryTerms.get(i)).values()) {
+                    documentFrequency += trips.size();
+                }
+                idf[i] = Math.log(1.0 + (double) documents.size()
+                        / Math.max(1, Math.min(documentFrequency, documents.size())));
+            }
+
+            List<Hit> hits = new ArrayList<>();
+            if (memberId != null) {
+                for (Long tripId : tripsByMember.getOrDefault(memberId, Set.of())) {
+                    Document document = documents.get(tripId);
+                    double score = score(document, queryTerms, idf);
+                    if (score > 0 && filter.test(document)) {
+                        hits.add(new Hit(document, score));
+                    }
+                }
+            } else {
+                searchPostings(queryTerms, idf).forEach((tripId, score) -> {
+                    Document document = documents.get(tripId);
+                    if (filter.test(document)) {
+                        hits.add(new Hit(document, score));
+                    }
+                });
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best {@code limit} hits, best first. Selected with a bounded heap, so a query
+     * matching thousands of trips doesn't sort all of them for one page.
+     */
+    public static List<Hit> top(List<Hit> hits, int limit) {
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (Hit hit : hits) {
+            best.add(hit);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Hit> page = new ArrayList<>(best);
+        page.sort(RANKING);
+        return page;
+    }
+
+    // 0 unless every term matches
+    private static double score(Document document, List<String> queryTerms, double[] idf) {
+        double score = 0;
+        for (int i = 0; i < idf.length; i++) {
+            String term = queryTerms.get(i);
+            double best = 0;
+            for (Map.Entry<String, Occurrences> entry : prefixRange(document.terms(), term).entrySet()) {
+                double factor = entry.getKey().equals(term) ? 1.0 : PREFIX_FACTOR;
+                best = Math.max(best, entry.getValue().weight() * factor);
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best * idf[i];
+        }
+        return score;
+    }
+
+    private Map<Long, Double> searchPostings(List<String> queryTerms, double[] idf) {
+        Map<Long, Double> scores = null;
+        for (int i = 0; i < idf.length; i++) {
+            String term = queryTerms.get(i);
+            Map<Long, Double> termScores = new HashMap<>();
+            for (Map.Entry<String, Map<Long, Occurrences>> posting : prefixRange(postings, term).entrySet()) {
+                double factor = posting.getKey().equals(term) ? 1.0 : PREFIX_FACTOR;
+                Map<Long, Double> previous = scores;
+                posting.getValue().forEach((tripId, occurrences) -> {
+                    if (previous == null || previous.containsKey(tripId)) {
+                        termScores.merge(tripId, occurrences.weight() * factor, Math::max);
+                    }
+                });
+            }
+
+            Map<Long, Double> combined = new HashMap<>();
+            for (Map.Entry<Long, Double> entry : termScores.entrySet()) {
+                double previousScore = scores != null ? scores.get(entry.getKey()) : 0;
+                combined.put(entry.getKey(), previousScore + entry.getValue() * idf[i]);
+            }
+            if (combined.isEmpty()) {
+                return combined;
+            }
+            scores = combined;
+        }
+        return scores != null ? scores : Map.of();
+    }
+
+    /**
+     * Where the query terms occur in one result, strongest fields first. Documents are
+     * immutable, so this needs no lock.
+     */
+    public static List<Match> matches(Document document, List<String> queryTerms) {
+        Set<Match> matches = new LinkedHashSet<>();
+        for (String term : queryTerms) {
+            for (Occurrences occurrences : prefixRange(document.terms(), term).values()) {
+                matches.addAll(occurrences.matches());
+            }
+        }
+        List<Match> sorted = new ArrayList<>(matches);
+        sorted.sort(Comparator.comparing(match -> match.field().ordinal()));
+        return sorted;
+    }
+
+    private static <V> NavigableMap<String, V> prefixRange(NavigableMap<String, V> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+    }
+
+    private void unindex(Document document) {
+        for (Long memberId : document.memberIds()) {
+            Set<Long> trips = tripsByMember.get(memberId);
+            if (trips != null) {
+                trips.remove(document.tripId());
+                if (trips.isEmpty()) {
+                    tripsByMember.remove(memberId);
+                }
+            }
+        }
+        for (String term : document.terms().keySet()) {
+            Map<Long, Occurrences> trips = postings.get(term);
+            if (trips != null) {
+                trips.remove(document.tripId());
+                if (trips.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
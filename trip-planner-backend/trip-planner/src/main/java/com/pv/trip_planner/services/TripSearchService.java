@@ -0,0 +1,140 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.SearchFacetDto;
+import com.pv.trip_planner.dto.TripSearchHitDto;
+import com.pv.trip_planner.dto.TripSearchResultDto;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.security.SecurityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over the trips a user can see, answered from TripSearchIndex without
+ * touching the database. TripIndexUpdater builds the index at startup and keeps it
+ * current after every write.
+ */
+@Service
+public class TripSearchService implements TripIndex {
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Value("${app.search.default-results:20}")
+    private int defaultResults;
+
+    @Value("${app.search.max-results:100}")
+    private int maxResults;
+
+    private final TripSearchIndex index = new TripSearchIndex();
+
+    @Override
+    public void put(Trip trip) {
+        index.put(TripSearchIndex.Document.of(trip));
+    }
+
+    @Override
+    public void remove(Long tripId) {
+        index.remove(tripId);
+    }
+
+    /**
+     * Searches the current user's trips (every trip for admins). Each word of the query
+     * must match a word of the trip, its destinations, itinerary or activities, either
+     * exactly or as a prefix. Optional filters narrow the hits to a destination or to trips
+     * overlapping a date range; total and facets cover all matching trips.
+     */
+    public TripSearchResultDto search(String query, String destination, LocalDate from, LocalDate to,
+                                      Integer limit) {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        List<String> terms = TripSearchIndex.tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must contain a letter or digit");
+        }
+        int resultLimit = limit == null || limit < 1 ? defaultResults : Math.min(limit, maxResults);
+
+        long start = System.nanoTime();
+        boolean admin = securityUtils.isAdmin(currentUser);
+        Predicate<TripSearchIndex.Document> filter = document ->
+                (destination == null || document.destinations().stream().anyMatch(destination::equalsIgnoreCase))
+                        && overlaps(document, from, to);
+        // Admins search every trip; everyone else only the trips they own or collaborate on
+        List<TripSearchIndex.Hit> hits = index.search(terms, admin ? null : currentUser.getId(), filter);
+
+        List<TripSearchHitDto> page = TripSearchIndex.top(hits, resultLimit).stream()
+                .map(hit -> TripSearchHitDto.fromHit(hit, TripSearchIndex.matches(hit.document(), terms)))
+                .collect(Collectors.toList());
+
+        return TripSearchResultDto.builder()
+                .query(query)
+                .total(hits.size())
+                .hits(page)
+                .destinations(destinationFacets(hits))
+                .startMonths(startMonthFacets(hits))
+                .tookMicros((System.nanoTime() - start) / 1_000)
+                .build();
+    }
+
+    private static boolean overlaps(TripSearchIndex.Document document, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        LocalDate start = document.startDate();
+        LocalDate end = document.endDate() != null ? document.endDate() : start;
+        if (start == null) {
+            return false;
+        }
+        return (to == null || !start.isAfter(to)) && (from == null || !end.isBefore(from));
+    }
+
+    // Trips per destination name (case-insensitive), most frequent first
+    static List<SearchFacetDto> destinationFacets(List<TripSearchIndex.Hit> hits) {
+        Map<String, String> names = new LinkedHashMap<>();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (TripSearchIndex.Hit hit : hits) {
+            Set<String> seen = new HashSet<>();
+            for (String name : hit.document().destinations()) {
+                String key = name.toLowerCase(Locale.ROOT);
+                if (seen.add(key)) {
+                    names.putIfAbsent(key, name);
+                    counts.merge(key, 1L, Long::sum);
+                }
+            }
+        }
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> new SearchFacetDto(names.get(entry.getKey()), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    static List<SearchFacetDto> startMonthFacets(List<TripSearchIndex.Hit> hits) {
+        Map<YearMonth, Long> counts = new TreeMap<>(Comparator.naturalOrder());
+        for (TripSearchIndex.Hit hit : hits) {
+            if (hit.document().startDate() != null) {
+                counts.merge(YearMonth.from(hit.document().startDate()), 1L, Long::sum);
+            }
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new SearchFacetDto(entry.getKey().toString(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+}
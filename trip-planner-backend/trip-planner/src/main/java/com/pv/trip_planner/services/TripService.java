@@ -1,26 +1,46 @@
 package com.pv.trip_planner.services;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.pv.trip_planner.dto.ActivityResponseDto;
+import com.pv.trip_planner.dto.BulkImportResultDto;
 import com.pv.trip_planner.dto.ItineraryItemResponseDto;
+import com.pv.trip_planner.dto.TripInclude;
+import com.pv.trip_planner.dto.TripPageDto;
+import com.pv.trip_planner.dto.TripPageRequest;
 import com.pv.trip_planner.dto.TripResponseDto;
 import com.pv.trip_planner.dto.UserDashboardDto;
-import com.pv.trip_planner.dto.UserDto;
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.ChangeLogEntry.ChangeType;
+import com.pv.trip_planner.entities.ChangeLogEntry.EntityType;
 import com.pv.trip_planner.entities.ItineraryItem;
 import com.pv.trip_planner.entities.Trip;
 import com.pv.trip_planner.entities.User;
 import com.pv.trip_planner.repositories.ItineraryRepository;
+import com.pv.trip_planner.repositories.JdbcStatementCounter;
 import com.pv.trip_planner.repositories.TripRepository;
 import com.pv.trip_planner.security.SecurityUtils;
 import com.pv.trip_planner.services.FileStorageService;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
 import java.io.IOException;
 
 
@@ -39,34 +59,145 @@ public class TripService {
     @Autowired
     private FileStorageService fileStorageService;
 
-    public List<TripResponseDto> getAllTripsForCurrentUser() {
+    @Autowired
+    private TripGraphLoader tripGraphLoader;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private GeocodingService geocodingService;
+
+    @Value("${app.trips.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.trips.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.trips.export.chunk-size:500}")
+    private int exportChunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public TripPageDto getTripPageForCurrentUser(TripPageRequest pageRequest) {
         User currentUser = securityUtils.getCurrentUser();
         if (currentUser == null) {
             throw new RuntimeException("User not authenticated");
         }
 
-        List<Trip> trips;
         if (securityUtils.isAdmin(currentUser)) {
             // Admin can see all trips
-            trips = tripRepository.findAll();
-        } else {
-            // Regular users can only see trips they own or collaborate on
-            trips = tripRepository.findByOwnerOrCollaboratorsContaining(currentUser);
+            return getTripPage(pageRequest);
         }
 
-        return trips.stream()
+        // Regular users can only see trips they own or collaborate on
+        int size = resolvePageSize(pageRequest.getSize());
+        List<Long> ids = tripRepository.findPageIdsForUser(currentUser, afterId(pageRequest),
+                pageRequest.getOwnerId(), pageRequest.getFrom(), pageRequest.getTo(), Limit.of(size + 1));
+        return loadPage(ids, size, TripInclude.parse(pageRequest.getInclude()));
+    }
+
+    @Transactional(readOnly = true)
+    public TripPageDto getTripPage(TripPageRequest pageRequest) {
+        int size = resolvePageSize(pageRequest.getSize());
+        List<Long> ids = tripRepository.findPageIds(afterId(pageRequest), pageRequest.getOwnerId(),
+                pageRequest.getFrom(), pageRequest.getTo(), Limit.of(size + 1));
+        return loadPage(ids, size, TripInclude.parse(pageRequest.getInclude()));
+    }
+
+    private TripPageDto loadPage(List<Long> ids, int size, Set<TripInclude> include) {
+        // One extra id is requested to know whether another page follows
+        boolean hasMore = ids.size() > size;
+        List<Long> pageIds = hasMore ? ids.subList(0, size) : ids;
+
+        List<TripResponseDto> trips = pageIds.isEmpty() ? List.of() :
+                tripGraphLoader.loadGraph(tripRepository.findAllWithOwnerByIdIn(pageIds), include).stream()
+                        .map(trip -> TripResponseDto.fromTrip(trip, include))
+                        .collect(Collectors.toList());
+
+        return TripPageDto.builder()
+                .trips(trips)
+                .nextCursor(hasMore ? pageIds.get(pageIds.size() - 1) : null)
+                .build();
+    }
+
+    /**
+     * Streams every trip to the sink for the admin export. Trip ids are read from a
+     * server-side cursor and processed in chunks; the persistence context is cleared after
+     * each chunk so memory stays flat regardless of the number of trips.
+     */
+    @Transactional(readOnly = true)
+    public void exportAllTrips(Consumer<TripResponseDto> sink) {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        if (!securityUtils.isAdmin(currentUser)) {
+            throw new RuntimeException("Access denied: Only admins can export trips");
+        }
+
+        List<Long> chunk = new ArrayList<>(exportChunkSize);
+        try (Stream<Long> tripIds = tripRepository.streamAllIds()) {
+            tripIds.forEach(tripId -> {
+                chunk.add(tripId);
+                if (chunk.size() == exportChunkSize) {
+                    exportChunk(chunk, sink);
+                    chunk.clear();
+                }
+            });
+        }
+        if (!chunk.isEmpty()) {
+            exportChunk(chunk, sink);
+        }
+    }
+
+    private void exportChunk(List<Long> tripIds, Consumer<TripResponseDto> sink) {
+        tripGraphLoader.loadGraph(tripRepository.findAllWithOwnerByIdIn(tripIds)).stream()
                 .map(TripResponseDto::fromTrip)
-                .collect(Collectors.toList());
+                .forEach(sink);
+        entityManager.clear();
+    }
+
+    private int resolvePageSize(Integer requestedSize) {
+        if (requestedSize == null || requestedSize < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(requestedSize, maxPageSize);
     }
 
-    public List<Trip> getAllTrips() {
-        return tripRepository.findAll();
+    private Long afterId(TripPageRequest pageRequest) {
+        return pageRequest.getCursor() != null ? pageRequest.getCursor() : 0L;
     }
 
+    private List<Trip> loadAccessibleTrips(User currentUser) {
+        List<Trip> trips;
+        if (securityUtils.isAdmin(currentUser)) {
+            // Admin can see all trips
+            trips = tripRepository.findAllWithOwner();
+        } else {
+            // Regular users can only see trips they own or collaborate on
+            trips = tripRepository.findByOwnerOrCollaboratorsContaining(currentUser);
+        }
+        return tripGraphLoader.loadGraph(trips);
+    }
+
+    @Transactional
     public void createTrip(Trip trip) {
         tripRepository.save(trip);
+        changeFeedService.record(trip.getId(), EntityType.TRIP, trip.getId(), null, ChangeType.UPSERT);
     }
 
+    /**
+     * Creates the trip in one transaction with its change-log entry. The image is stored
+     * first and released again if the trip can't be saved; its variants are only queued once
+     * the trip has committed.
+     */
+    @Transactional
     public void createTripWithImage(String title, String description, LocalDate startDate, LocalDate endDate, MultipartFile image) throws IOException {
         // Validate image file
         if (image != null && !fileStorageService.isValidImageFile(image)) {
@@ -95,9 +226,51 @@ public class TripService {
                 .owner(currentUser)
                 .build();
 
-        tripRepository.save(trip);
+        try {
+            tripRepository.save(trip);
+            changeFeedService.record(trip.getId(), EntityType.TRIP, trip.getId(), null, ChangeType.UPSERT);
+        } catch (RuntimeException e) {
+            if (imageUrl != null) {
+                fileStorageService.deleteFile(imageUrl);
+            }
+            throw e;
+        }
+
+        // Thumbnails are generated in the background; the upload request does not wait for them
+        if (imageUrl != null) {
+            eventPublisher.publishEvent(new TripImageStoredEvent(trip.getId(), imageUrl, null));
+        }
+    }
+
+    /**
+     * Makes a stored file the trip's image (e.g. a completed chunked upload). The trip row is
+     * locked while its image is replaced, so concurrent attaches see each other's image; the
+     * replaced file is released and variants are queued once the transaction commits.
+     */
+    @Transactional
+    public void attachImage(Long tripId, String filename) {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        checkTripAccess(currentUser, tripId);
+
+        String previousImage = tripRepository.findImageUrlForUpdate(tripId).orElse(null);
+        tripRepository.updateImage(tripId, filename);
+        changeFeedService.record(tripId, EntityType.TRIP, tripId, null, ChangeType.UPSERT);
+        eventPublisher.publishEvent(new TripImageStoredEvent(tripId, filename, previousImage));
+    }
+
+    // Outside the committed transaction, so each reference update commits on its own as in deleteFile
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onImageStored(TripImageStoredEvent event) {
+        if (event.previousFilename() != null) {
+            fileStorageService.deleteFile(event.previousFilename());
+        }
     }
 
+    @Transactional
     public void addItineraryItemToTrip(Long tripId, ItineraryItem itineraryItem) {
         // ItineraryItem existingItem = itineraryItemRepository.findById(itineraryItem.getId())
         // .orElseThrow(() -> new RuntimeException("Itinerary item not found"));
@@ -105,90 +278,172 @@ public class TripService {
         Trip trip = tripRepository.findById(tripId)
         .orElseThrow(() -> new RuntimeException("Trip not found"));
 
+        geocodingService.locate(itineraryItem);
+        // Persisted first so its nested activities get linked to it (a cascaded merge would not)
+        itineraryItemRepository.save(itineraryItem);
         trip.getItinerary().add(itineraryItem);
         tripRepository.save(trip);
+        changeFeedService.recordAll(tripId, itineraryChanges(tripId, List.of(itineraryItem)));
     }
 
-    public TripResponseDto getTripByIdForCurrentUser(Long tripId) {
+    /**
+     * Imports a whole itinerary (items with nested activities) in one transaction. Ids come
+     * from pooled sequences and inserts are ordered, so Hibernate sends them as JDBC batches:
+     * a two-week itinerary costs a handful of round trips instead of one per row.
+     */
+    @Transactional
+    public BulkImportResultDto importItinerary(Long tripId, List<ItineraryItem> items) {
         User currentUser = securityUtils.getCurrentUser();
         if (currentUser == null) {
             throw new RuntimeException("User not authenticated");
         }
 
-        Trip trip = tripRepository.findById(tripId)
-                .orElseThrow(() -> new RuntimeException("Trip not found"));
+        checkTripAccess(currentUser, tripId);
+        Trip trip = tripRepository.getReferenceById(tripId);
+
+        int activityCount = 0;
+        long statements;
+        JdbcStatementCounter.start();
+        try {
+            for (ItineraryItem item : items) {
+                // Always insert: client-supplied ids must not overwrite existing rows
+                item.setId(null);
+                if (item.getActivities() == null) {
+                    item.setActivities(new ArrayList<>());
+                }
+                for (Activity activity : item.getActivities()) {
+                    activity.setId(null);
+                }
+                activityCount += item.getActivities().size();
+                geocodingService.locate(item);
+                entityManager.persist(item);
+            }
+            trip.getItinerary().addAll(items);
+            entityManager.flush();
+            changeFeedService.recordAll(tripId, itineraryChanges(tripId, items));
+        } finally {
+            statements = JdbcStatementCounter.stop();
+        }
+
+        return BulkImportResultDto.builder()
+                .itineraryItemsCreated(items.size())
+                .activitiesCreated(activityCount)
+                .jdbcStatements(statements)
+                .build();
+    }
 
-        // Check if user has access to this trip
-        if (!securityUtils.isAdmin(currentUser) && 
-            !trip.getOwner().equals(currentUser) && 
-            !trip.getCollaborators().contains(currentUser)) {
-            throw new RuntimeException("Access denied: You don't have permission to view this trip");
+    private static List<ChangeFeedService.Change> itineraryChanges(Long tripId, List<ItineraryItem> items) {
+        List<ChangeFeedService.Change> changes = new ArrayList<>();
+        for (ItineraryItem item : items) {
+            changes.add(new ChangeFeedService.Change(EntityType.ITINERARY_ITEM, item.getId(), tripId, ChangeType.UPSERT));
+            if (item.getActivities() != null) {
+                for (Activity activity : item.getActivities()) {
+                    changes.add(new ChangeFeedService.Change(EntityType.ACTIVITY, activity.getId(), item.getId(),
+                            ChangeType.UPSERT));
+                }
+            }
         }
+        return changes;
+    }
 
-        return TripResponseDto.fromTrip(trip);
+    /**
+     * Validator for the trip's representations, built from the version every trip,
+     * itinerary and activity write bumps. Costs one primary-key lookup, so unchanged
+     * trips can be answered with a 304 before any of the graph is loaded. Returns null
+     * when the trip doesn't exist.
+     */
+    public String getTripETag(Long tripId) {
+        return tripRepository.findVersionById(tripId)
+                .map(version -> "W/\"trip-" + tripId + "-v" + version + "\"")
+                .orElse(null);
     }
 
-    public List<ActivityResponseDto> getAllActivitiesForCurrentUser() {
+    /**
+     * Same as {@link #getTripETag} but only after the access check, so a 304 never
+     * confirms the state of a trip the user can't see.
+     */
+    public String getTripETagForCurrentUser(Long tripId) {
         User currentUser = securityUtils.getCurrentUser();
         if (currentUser == null) {
             throw new RuntimeException("User not authenticated");
         }
+        checkTripAccess(currentUser, tripId);
+        return getTripETag(tripId);
+    }
 
-        List<Trip> accessibleTrips;
-        if (securityUtils.isAdmin(currentUser)) {
-            // Admin can see all trips and their activities
-            accessibleTrips = tripRepository.findAll();
-        } else {
-            // Regular users can only see trips they own or collaborate on
-            accessibleTrips = tripRepository.findByOwnerOrCollaboratorsContaining(currentUser);
+    @Transactional(readOnly = true)
+    public TripResponseDto getTripByIdForCurrentUser(Long tripId) {
+        return getTripByIdForCurrentUser(tripId, TripInclude.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public TripResponseDto getTripByIdForCurrentUser(Long tripId, Set<TripInclude> include) {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+
+        // Check if user has access to this trip before loading anything
+        checkTripAccess(currentUser, tripId);
+
+        Trip trip = tripRepository.findWithOwnerById(tripId)
+                .orElseThrow(() -> new RuntimeException("Trip not found"));
+
+        return TripResponseDto.fromTrip(tripGraphLoader.loadGraph(List.of(trip), include).get(0), include);
+    }
+
+    /**
+     * Throws unless the user is an admin, the trip owner or a collaborator. Costs one
+     * indexed query and never materializes the trip; a second lookup only runs on the
+     * denied path to tell a missing trip from a forbidden one.
+     */
+    public void checkTripAccess(User user, Long tripId) {
+        if (securityUtils.isAdmin(user) || tripRepository.isAccessibleBy(tripId, user.getId())) {
+            return;
+        }
+        if (!tripRepository.existsById(tripId)) {
+            throw new RuntimeException("Trip not found");
+        }
+        throw new RuntimeException("Access denied: You don't have permission to view this trip");
+    }
+
+    @Transactional(readOnly = true)
+    public List<ActivityResponseDto> getAllActivitiesForCurrentUser() {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
         }
 
-        return accessibleTrips.stream()
+        return loadAccessibleTrips(currentUser).stream()
                 .flatMap(trip -> trip.getItinerary().stream())
                 .flatMap(item -> item.getActivities().stream())
                 .map(ActivityResponseDto::fromActivity)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<ItineraryItemResponseDto> getAllItineraryItemsForCurrentUser() {
         User currentUser = securityUtils.getCurrentUser();
         if (currentUser == null) {
             throw new RuntimeException("User not authenticated");
         }
 
-        List<Trip> accessibleTrips;
-        if (securityUtils.isAdmin(currentUser)) {
-            // Admin can see all trips and their itinerary items
-            accessibleTrips = tripRepository.findAll();
-        } else {
-            // Regular users can only see trips they own or collaborate on
-            accessibleTrips = tripRepository.findByOwnerOrCollaboratorsContaining(currentUser);
-        }
-
-        return accessibleTrips.stream()
+        return loadAccessibleTrips(currentUser).stream()
                 .flatMap(trip -> trip.getItinerary().stream())
                 .map(ItineraryItemResponseDto::fromItineraryItem)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public UserDashboardDto getUserDashboard() {
         User currentUser = securityUtils.getCurrentUser();
         if (currentUser == null) {
             throw new RuntimeException("User not authenticated");
         }
 
+        // Load the accessible trip graph once; itinerary items and activities are derived from it
         boolean isAdmin = securityUtils.isAdmin(currentUser);
-        List<TripResponseDto> trips = getAllTripsForCurrentUser();
-        List<ItineraryItemResponseDto> itineraryItems = getAllItineraryItemsForCurrentUser();
-        List<ActivityResponseDto> activities = getAllActivitiesForCurrentUser();
-
-        return UserDashboardDto.builder()
-                .user(UserDto.fromUser(currentUser))
-                .trips(trips)
-                .itineraryItems(itineraryItems)
-                .activities(activities)
-                .isAdmin(isAdmin)
-                .build();
+        return UserDashboardDto.fromTrips(currentUser, loadAccessibleTrips(currentUser), isAdmin);
     }
 
     public Trip getTripById(Long tripId) {
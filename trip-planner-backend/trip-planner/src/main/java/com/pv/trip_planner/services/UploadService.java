@@ -0,0 +1,303 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.CreateUploadRequest;
+import com.pv.trip_planner.dto.UploadSessionDto;
+import com.pv.trip_planner.entities.UploadSession;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.repositories.UploadSessionRepository;
+import com.pv.trip_planner.security.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable chunked uploads for trip media. Each chunk is streamed from the request body
+ * straight into the part file at its offset and verified against a per-chunk SHA-256; a
+ * running digest of the whole file is kept alongside, so completing an upload is an atomic
+ * move into the content-addressed store without reading the bytes again.
+ */
+@Service
+public class UploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private SecurityUtils securityUtils;
+
+    @Value("${app.uploads.max-size:104857600}")
+    private long maxUploadSize;
+
+    @Value("${app.uploads.max-chunk-size:8388608}")
+    private long maxChunkSize;
+
+    @Value("${app.uploads.session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    // Digest of bytes [0, receivedBytes) per session; rebuilt from the part file after a restart
+    private final Map<String, MessageDigest> runningDigests = new ConcurrentHashMap<>();
+
+    private final Object[] sessionLocks = new Object[64];
+
+    {
+        for (int i = 0; i < sessionLocks.length; i++) {
+            sessionLocks[i] = new Object();
+        }
+    }
+
+    public UploadSessionDto createSession(CreateUploadRequest request) throws IOException {
+        User currentUser = requireUser();
+        if (request.getTotalSize() == null || request.getTotalSize() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "totalSize is required");
+        }
+        if (request.getTotalSize() > maxUploadSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Upload exceeds the maximum size of " + maxUploadSize + " bytes");
+        }
+        if (request.getContentType() == null || !request.getContentType().startsWith("image/")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only image uploads are supported");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = UploadSession.builder()
+                .id(UUID.randomUUID().toString())
+                .ownerId(currentUser.getId())
+                .originalFilename(request.getFilename())
+                .contentType(request.getContentType())
+                .totalSize(request.getTotalSize())
+                .receivedBytes(0)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        Files.createFile(partFile(session.getId()));
+        uploadSessionRepository.save(session);
+        runningDigests.put(session.getId(), FileStorageService.newSha256());
+        return UploadSessionDto.fromSession(session);
+    }
+
+    public UploadSessionDto getSession(String uploadId) {
+        return UploadSessionDto.fromSession(loadOwnSession(uploadId));
+    }
+
+    /**
+     * Appends one chunk at the given offset. The offset must equal the bytes received so
+     * far (clients resume from {@link #getSession}); a chunk whose SHA-256 doesn't match
+     * is truncated away and leaves the session where it was.
+     */
+    public UploadSessionDto appendChunk(String uploadId, long offset, String chunkSha256, InputStream body)
+            throws IOException {
+        if (chunkSha256 == null || chunkSha256.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chunk checksum header is required");
+        }
+
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = loadOwnSession(uploadId);
+            if (offset != session.getReceivedBytes()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Expected offset " + session.getReceivedBytes());
+            }
+
+            Path part = partFile(uploadId);
+            long limit = Math.min(maxChunkSize, session.getTotalSize() - offset);
+            MessageDigest chunkDigest = FileStorageService.newSha256();
+            // Updated on a copy so a rejected chunk doesn't corrupt the running digest
+            MessageDigest candidate = cloneDigest(runningDigest(uploadId, part, offset));
+
+            long written = 0;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                channel.position(offset);
+                byte[] bytes = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = body.read(bytes)) != -1) {
+                    written += read;
+                    if (written > limit) {
+                        channel.truncate(offset);
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Chunk exceeds " + limit + " bytes");
+                    }
+                    chunkDigest.update(bytes, 0, read);
+                    candidate.update(bytes, 0, read);
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, read);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+
+                if (!HexFormat.of().formatHex(chunkDigest.digest()).equalsIgnoreCase(chunkSha256.trim())) {
+                    channel.truncate(offset);
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chunk checksum mismatch");
+                }
+            }
+
+            long newOffset = offset + written;
+            if (uploadSessionRepository.advanceOffset(uploadId, offset, newOffset, LocalDateTime.now()) == 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload was modified concurrently");
+            }
+            runningDigests.put(uploadId, candidate);
+            session.setReceivedBytes(newOffset);
+            return UploadSessionDto.fromSession(session);
+        }
+    }
+
+    /**
+     * Finalizes a fully received upload: the part file is moved atomically into the
+     * content-addressed store under its running digest, and optionally becomes the image
+     * of a trip the user can access. Access to the trip is checked before anything is
+     * stored, so a denied trip leaves the upload in place to complete without it.
+     */
+    public UploadSessionDto complete(String uploadId, String expectedSha256, Long tripId) throws IOException {
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = loadOwnSession(uploadId);
+            if (tripId != null) {
+                tripService.checkTripAccess(requireUser(), tripId);
+            }
+            if (session.getReceivedBytes() != session.getTotalSize()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload incomplete: received "
+                        + session.getReceivedBytes() + " of " + session.getTotalSize() + " bytes");
+            }
+
+            Path part = partFile(uploadId);
+            String sha256 = HexFormat.of().formatHex(runningDigest(uploadId, part, session.getReceivedBytes()).digest());
+            if (expectedSha256 != null && !expectedSha256.trim().equalsIgnoreCase(sha256)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File checksum mismatch");
+            }
+
+            String filename;
+            try {
+                filename = fileStorageService.storeHashedFile(part, sha256,
+                        FileStorageService.extensionOf(session.getOriginalFilename()));
+            } finally {
+                Files.deleteIfExists(part);
+                runningDigests.remove(uploadId);
+            }
+            uploadSessionRepository.delete(session);
+
+            if (tripId != null) {
+                try {
+                    tripService.attachImage(tripId, filename);
+                } catch (RuntimeException e) {
+                    // Drops the reference just added; the bytes go too unless another trip uses them
+                    fileStorageService.deleteFile(filename);
+                    throw e;
+                }
+            }
+
+            UploadSessionDto result = UploadSessionDto.fromSession(session);
+            result.setComplete(true);
+            result.setFilename(filename);
+            return result;
+        }
+    }
+
+    public void cancel(String uploadId) throws IOException {
+        synchronized (lockFor(uploadId)) {
+            UploadSession session = loadOwnSession(uploadId);
+            discard(session);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.uploads.cleanup-interval-ms:3600000}")
+    public void removeStaleSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(sessionTtlHours);
+        for (UploadSession session : uploadSessionRepository.findByUpdatedAtBefore(cutoff)) {
+            try {
+                synchronized (lockFor(session.getId())) {
+                    discard(session);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not remove stale upload {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void discard(UploadSession session) throws IOException {
+        Files.deleteIfExists(partFile(session.getId()));
+        runningDigests.remove(session.getId());
+        uploadSessionRepository.delete(session);
+    }
+
+    private UploadSession loadOwnSession(String uploadId) {
+        User currentUser = requireUser();
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found"));
+        if (!session.getOwnerId().equals(currentUser.getId())) {
+            // Not revealing other users' upload ids
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found");
+        }
+        return session;
+    }
+
+    private User requireUser() {
+        User currentUser = securityUtils.getCurrentUser();
+        if (currentUser == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        return currentUser;
+    }
+
+    private MessageDigest runningDigest(String uploadId, Path part, long length) throws IOException {
+        MessageDigest digest = runningDigests.get(uploadId);
+        if (digest != null) {
+            return digest;
+        }
+
+        // Lost on restart: hash what was received so far, once
+        digest = FileStorageService.newSha256();
+        try (InputStream in = Files.newInputStream(part)) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            long remaining = length;
+            int read;
+            while (remaining > 0 && (read = in.read(bytes, 0, (int) Math.min(bytes.length, remaining))) != -1) {
+                digest.update(bytes, 0, read);
+                remaining -= read;
+            }
+        }
+        runningDigests.put(uploadId, digest);
+        return digest;
+    }
+
+    private static MessageDigest cloneDigest(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("SHA-256 digest is not cloneable", e);
+        }
+    }
+
+    private Path partFile(String uploadId) {
+        return fileStorageService.incomingDirectory().resolve(uploadId + ".part");
+    }
+
+    private Object lockFor(String uploadId) {
+        return sessionLocks[Math.floorMod(uploadId.hashCode(), sessionLocks.length)];
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Service;
 
 import com.pv.trip_planner.entities.User;
 import com.pv.trip_planner.repositories.UserRepository;
+import com.pv.trip_planner.security.UserPrincipalCache;
 
 @Service
 public class UserService {
@@ -14,12 +15,18 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
     public void createUser(User user) {
-        userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        // save() also updates an existing user when an id is given
+        userPrincipalCache.evictUser(savedUser.getId());
+        userPrincipalCache.evict(savedUser.getUsername());
     }
 
 }
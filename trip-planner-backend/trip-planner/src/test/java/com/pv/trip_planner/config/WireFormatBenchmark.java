@@ -0,0 +1,86 @@
+package com.pv.trip_planner.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Serialization time and bytes on the wire (plain and gzipped) of JSON, CBOR and Smile for a
+ * trip detail document and a dashboard, with the application's mappers. Tagged "benchmark"
+ * and left out of the default build; run it with
+ *
+ * <pre>
+ * mvn test -Pbenchmark [-Dbenchmark.trips=10 -Dbenchmark.days=14 -Dbenchmark.activities-per-day=10]
+ * </pre>
+ *
+ * The results are logged as one line per document and format.
+ */
+@Tag("benchmark")
+class WireFormatBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireFormatBenchmark.class);
+
+    private static final int WARMUP_ITERATIONS = 2_000;
+    private static final int MEASURED_ITERATIONS = 5_000;
+
+    // Keeps the JIT from dropping the measured serialization
+    private static volatile long blackhole;
+
+    record Result(int bytes, int gzipBytes, double micros) {
+    }
+
+    @Test
+    void compareWireFormats() throws IOException {
+        int trips = Integer.getInteger("benchmark.trips", 10);
+        int days = Integer.getInteger("benchmark.days", 14);
+        int activitiesPerDay = Integer.getInteger("benchmark.activities-per-day", 10);
+
+        Map<String, Object> documents = new LinkedHashMap<>();
+        documents.put("trip details", WireFormats.tripDetails(days, activitiesPerDay));
+        documents.put("dashboard (" + trips + " trips)", WireFormats.dashboard(trips, days, activitiesPerDay));
+
+        for (Map.Entry<String, Object> document : documents.entrySet()) {
+            Map<String, Result> results = new LinkedHashMap<>();
+            for (Map.Entry<String, ObjectMapper> mapper : WireFormats.mappers().entrySet()) {
+                Result result = measure(mapper.getValue(), document.getValue());
+                results.put(mapper.getKey(), result);
+                logger.info("{} {}: {} bytes, {} gzip bytes, {} us/op", document.getKey(), mapper.getKey(),
+                        result.bytes(), result.gzipBytes(), String.format("%.1f", result.micros()));
+            }
+            assertTrue(results.get("smile").bytes() < results.get("json").bytes(), document.getKey());
+        }
+    }
+
+    private static Result measure(ObjectMapper mapper, Object document) throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(document);
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += mapper.writeValueAsBytes(document).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink += mapper.writeValueAsBytes(document).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        blackhole = sink;
+        return new Result(encoded.length, gzip(encoded).length, elapsed / 1_000.0 / MEASURED_ITERATIONS);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,40 @@
+package com.pv.trip_planner.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pv.trip_planner.dto.UserDashboardDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The dashboard is the document Smile is offered for: it must come out smaller than JSON,
+ * and every format must decode to the same tree. WireFormatBenchmark measures by how much.
+ */
+class WireFormatConfigTest {
+
+    private final Map<String, ObjectMapper> mappers = WireFormats.mappers();
+
+    @Test
+    void dashboardIsSmallerInSmileThanInJson() throws Exception {
+        UserDashboardDto dashboard = WireFormats.dashboard(10, 14, 10);
+
+        byte[] json = mappers.get("json").writeValueAsBytes(dashboard);
+        byte[] smile = mappers.get("smile").writeValueAsBytes(dashboard);
+
+        assertTrue(smile.length < json.length, "smile " + smile.length + " bytes, json " + json.length + " bytes");
+    }
+
+    @Test
+    void everyFormatEncodesTheSameDocument() throws Exception {
+        UserDashboardDto dashboard = WireFormats.dashboard(2, 3, 4);
+        ObjectMapper json = mappers.get("json");
+
+        for (Map.Entry<String, ObjectMapper> mapper : mappers.entrySet()) {
+            assertEquals(json.readTree(json.writeValueAsBytes(dashboard)),
+                    mapper.getValue().readTree(mapper.getValue().writeValueAsBytes(dashboard)), mapper.getKey());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.pv.trip_planner.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pv.trip_planner.dto.TripResponseDto;
+import com.pv.trip_planner.dto.UserDashboardDto;
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.entities.Role;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The application's mappers for each wire format, taken from WireFormatConfig's converters,
+ * and synthetic trip documents to encode with them.
+ */
+final class WireFormats {
+
+    private WireFormats() {
+    }
+
+    // JSON, CBOR and Smile, in that order
+    static Map<String, ObjectMapper> mappers() {
+        WireFormatConfig config = new WireFormatConfig();
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", builder().build());
+        mappers.put("cbor", config.cborHttpMessageConverter(builder()).getObjectMapper());
+        mappers.put("smile", config.smileHttpMessageConverter(builder()).getObjectMapper());
+        return mappers;
+    }
+
+    // What Boot's builder applies without spring.jackson.* settings: dates as ISO strings
+    private static Jackson2ObjectMapperBuilder builder() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static TripResponseDto tripDetails(int days, int activitiesPerDay) {
+        return TripResponseDto.fromTrip(trip(0, owner(), days, activitiesPerDay));
+    }
+
+    static UserDashboardDto dashboard(int trips, int days, int activitiesPerDay) {
+        User owner = owner();
+        List<Trip> tripGraph = new ArrayList<>();
+        for (int t = 0; t < trips; t++) {
+            tripGraph.add(trip(t, owner, days, activitiesPerDay));
+        }
+        return UserDashboardDto.fromTrips(owner, tripGraph, false);
+    }
+
+    private static User owner() {
+        return User.builder()
+                .id(1L)
+                .username("alice")
+                .email("alice@example.com")
+                .roles(Set.of(Role.builder().id(1L).name(Role.RoleType.USER).build()))
+                .build();
+    }
+
+    private static Trip trip(int index, User owner, int days, int activitiesPerDay) {
+        LocalDate start = LocalDate.of(2025, 6, 1).plusDays(index * 30L);
+        List<ItineraryItem> itinerary = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            List<Activity> activities = new ArrayList<>();
+            for (int a = 0; a < activitiesPerDay; a++) {
+                activities.add(Activity.builder()
+                        .id((long) (index * 10_000 + d * 100 + a))
+                        .title("Activity " + (a + 1))
+                        .description("Guided visit with time for lunch and photos")
+                        .location(a % 2 == 0 ? "Old Town" : "Harbour")
+                        .startTime(LocalTime.of(8 + a % 12, 0))
+                        .endTime(LocalTime.of(8 + a % 12, 45))
+                        .version(0L)
+                        .build());
+            }
+            itinerary.add(ItineraryItem.builder()
+                    .id((long) (index * 100 + d))
+                    .title("Day " + (d + 1))
+                    .description("Exploring the city")
+                    .startDate(start.plusDays(d))
+                    .endDate(start.plusDays(d))
+                    .location("Lisbon")
+                    .activities(activities)
+                    .build());
+        }
+        return Trip.builder()
+                .id((long) index + 1)
+                .title("Trip " + (index + 1))
+                .description("Two weeks along the coast")
+                .startDate(start)
+                .endDate(start.plusDays(days - 1))
+                .version(0L)
+                .owner(owner)
+                .collaborators(new HashSet<>())
+                .itinerary(itinerary)
+                .budgetItems(new ArrayList<>())
+                .packingList(new ArrayList<>())
+                .destinations(new ArrayList<>())
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.pv.trip_planner.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TripIncludeTest {
+
+    @Test
+    void missingParameterSelectsEverything() {
+        assertEquals(TripInclude.ALL, TripInclude.parse(null));
+    }
+
+    @Test
+    void emptyValuesAndNoneSelectNothing() {
+        assertEquals(TripInclude.NONE, TripInclude.parse(""));
+        assertEquals(TripInclude.NONE, TripInclude.parse(" "));
+        assertEquals(TripInclude.NONE, TripInclude.parse(",, ,"));
+        assertEquals(TripInclude.NONE, TripInclude.parse("none"));
+        assertEquals(TripInclude.NONE, TripInclude.parse("NONE"));
+    }
+
+    @Test
+    void namesAreCaseInsensitiveAndTrimmed() {
+        assertEquals(EnumSet.of(TripInclude.ITINERARY, TripInclude.BUDGET_ITEMS),
+                TripInclude.parse(" Itinerary , budgetitems "));
+        assertEquals(EnumSet.of(TripInclude.PACKING_LIST), TripInclude.parse("PACKINGLIST"));
+    }
+
+    @Test
+    void emptyTokensAndDuplicatesAreIgnored() {
+        assertEquals(EnumSet.of(TripInclude.COLLABORATORS, TripInclude.DESTINATIONS),
+                TripInclude.parse("collaborators,,destinations, ,collaborators,none"));
+    }
+
+    @Test
+    void allSelectsEverythingWhereverItAppears() {
+        assertEquals(TripInclude.ALL, TripInclude.parse("all"));
+        assertEquals(TripInclude.ALL, TripInclude.parse(" All "));
+        assertEquals(TripInclude.ALL, TripInclude.parse("itinerary,ALL"));
+    }
+
+    @Test
+    void everyParamNameParsesToItsValue() {
+        for (TripInclude include : TripInclude.values()) {
+            assertEquals(EnumSet.of(include), TripInclude.parse(include.paramName()));
+        }
+    }
+
+    @Test
+    void unknownNamesAreABadRequest() {
+        for (String include : new String[] {"itineraries", "itinerary,photos", "budget_items", "itinerary;destinations"}) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> TripInclude.parse(include));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> TripInclude.parse("itinerary, photos "));
+        assertEquals("Unknown include: photos", e.getReason());
+    }
+}
@@ -0,0 +1,215 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.services.GeoGridIndex.Entry;
+import com.pv.trip_planner.services.GeoGridIndex.Kind;
+import com.pv.trip_planner.services.GeoGridIndex.Nearby;
+import com.pv.trip_planner.services.GeoGridIndex.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GeoGridIndexTest {
+
+    private static final Long ALICE = 1L;
+    private static final Long BOB = 2L;
+
+    private final GeoGridIndex index = new GeoGridIndex(1.0);
+
+    private long nextId = 1;
+
+    @Test
+    void radiusAroundTheAntimeridianFindsPointsOnBothSides() {
+        Point east = point(1, 0, 179.5);
+        Point west = point(1, 0, -179.9);
+        Point tooFar = point(1, 0, -179.0);
+        index.put(entry(1, Set.of(ALICE), east, west, tooFar));
+
+        assertEquals(ids(east, west), ids(nearby(index.near(0, 179.9, 50, ALICE, point -> true))));
+        assertEquals(ids(east, west), ids(nearby(index.near(0, -179.95, 70, null, point -> true))));
+    }
+
+    @Test
+    void boxWithWestEdgeEastOfEastEdgeCrossesTheAntimeridian() {
+        Point fiji = point(1, -17.7, 178.0);
+        Point samoa = point(1, -13.8, -172.1);
+        Point sydney = point(1, -33.9, 151.2);
+        Point lisbon = point(1, 38.7, -9.1);
+        index.put(entry(1, Set.of(ALICE), fiji, samoa, sydney, lisbon));
+
+        assertEquals(ids(fiji, samoa), ids(index.within(-40, 170, 0, -170, null, point -> true)));
+        assertEquals(ids(sydney, lisbon), ids(index.within(-40, -170, 40, 170, null, point -> true)));
+    }
+
+    @Test
+    void pointsOnCellBoundariesAreFound() {
+        Point corner = point(1, 10.0, 20.0);
+        Point northPole = point(1, 90, 0);
+        Point southPole = point(1, -90, 0);
+        Point dateLineEast = point(1, 0, 180);
+        Point dateLineWest = point(1, 0, -180);
+        index.put(entry(1, Set.of(ALICE), corner, northPole, southPole, dateLineEast, dateLineWest));
+
+        assertEquals(ids(corner), ids(index.within(10, 20, 10, 20, null, point -> true)));
+        assertEquals(ids(corner), ids(index.within(9, 19, 10, 20, null, point -> true)));
+        assertEquals(ids(corner), ids(index.within(10, 20, 11, 21, null, point -> true)));
+        assertEquals(ids(northPole), ids(index.within(89, -1, 90, 1, null, point -> true)));
+        assertEquals(ids(southPole), ids(index.within(-90, -1, -89, 1, null, point -> true)));
+        assertEquals(ids(dateLineEast), ids(index.within(-1, 179, 1, 180, null, point -> true)));
+        assertEquals(ids(dateLineWest), ids(index.within(-1, -180, 1, -179, null, point -> true)));
+    }
+
+    @Test
+    void radiusReachingAPoleSearchesEveryLongitude() {
+        Point pole = point(1, 90, 0);
+        Point acrossThePole = point(1, 89.6, 180);
+        Point otherSide = point(1, 89.8, -90);
+        Point tooFar = point(1, 87.0, 180);
+        index.put(entry(1, Set.of(ALICE), pole, acrossThePole, otherSide, tooFar));
+
+        // 89.5N 0E to 89.6N 180E is 0.9 degrees over the pole, about 100 km
+        assertEquals(ids(pole, acrossThePole, otherSide), ids(nearby(index.near(89.5, 0, 150, null, point -> true))));
+        assertEquals(ids(pole, acrossThePole, otherSide), ids(nearby(index.near(89.5, 0, 150, ALICE, point -> true))));
+    }
+
+    @Test
+    void memberShortcutStillChecksTheBoxAndRadius() {
+        Point inside = point(1, 38.7, -9.1);
+        Point outside = point(1, 48.9, 2.3);
+        index.put(entry(1, Set.of(ALICE), inside, outside));
+        List<Point> others = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            others.add(point(2, 30 + i * 0.1, -10 + i * 0.1));
+        }
+        index.put(entry(2, Set.of(BOB), others.toArray(Point[]::new)));
+
+        // Alice's two points are fewer than the cells of the box, so her trip is read directly
+        assertEquals(ids(inside), ids(index.within(20, -20, 45, 0, ALICE, point -> true)));
+        assertEquals(ids(inside), ids(nearby(index.near(38.7, -9.0, 100, ALICE, point -> true))));
+        assertEquals(ids(), ids(index.within(20, -20, 45, 0, 3L, point -> true)));
+        assertEquals(51, index.within(20, -20, 45, 0, null, point -> true).size());
+    }
+
+    @Test
+    void memberScopeOnTheGridPathHidesOtherTrips() {
+        List<Point> alices = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            alices.add(point(1, 38.5 + i * 0.01, -9.5 + i * 0.01));
+        }
+        Point bobs = point(2, 38.6, -9.4);
+        index.put(entry(1, Set.of(ALICE), alices.toArray(Point[]::new)));
+        index.put(entry(2, Set.of(BOB), bobs));
+
+        // One cell: fewer than Alice's points, so the grid is searched and Bob's point filtered out
+        assertEquals(ids(alices), ids(index.within(38.1, -9.9, 38.9, -9.1, ALICE, point -> true)));
+        assertEquals(ids(bobs), ids(index.within(38.1, -9.9, 38.9, -9.1, BOB, point -> true)));
+    }
+
+    @Test
+    void queriesMatchCheckingEveryPoint() {
+        Random random = new Random(11);
+        for (double cellSize : new double[] {0.5, 5, 45}) {
+            GeoGridIndex grid = new GeoGridIndex(cellSize);
+            List<Point> all = new ArrayList<>();
+            for (long tripId = 1; tripId <= 4; tripId++) {
+                List<Point> points = new ArrayList<>();
+                int count = tripId == 1 ? 3 : 150;
+                for (int i = 0; i < count; i++) {
+                    points.add(point(tripId, randomLatitude(random), randomLongitude(random)));
+                }
+                grid.put(entry(tripId, tripId % 2 == 1 ? Set.of(ALICE) : Set.of(BOB), points.toArray(Point[]::new)));
+                all.addAll(points);
+            }
+            assertEquals(all.size(), grid.size());
+
+            for (int query = 0; query < 300; query++) {
+                Long memberId = query % 3 == 0 ? null : query % 3 == 1 ? ALICE : BOB;
+                Set<Long> visible = memberId == null ? Set.of(1L, 2L, 3L, 4L)
+                        : memberId.equals(ALICE) ? Set.of(1L, 3L) : Set.of(2L, 4L);
+
+                double minLatitude = randomLatitude(random);
+                double maxLatitude = Math.min(90, minLatitude + random.nextDouble() * 60);
+                double minLongitude = randomLongitude(random);
+                double maxLongitude = randomLongitude(random);
+                Set<Long> expected = new TreeSet<>();
+                for (Point point : all) {
+                    boolean inLongitude = minLongitude <= maxLongitude
+                            ? point.longitude() >= minLongitude && point.longitude() <= maxLongitude
+                            : point.longitude() >= minLongitude || point.longitude() <= maxLongitude;
+                    if (visible.contains(point.tripId()) && inLongitude
+                            && point.latitude() >= minLatitude && point.latitude() <= maxLatitude) {
+                        expected.add(point.id());
+                    }
+                }
+                assertEquals(expected, ids(grid.within(minLatitude, minLongitude, maxLatitude, maxLongitude,
+                        memberId, point -> true)), "box " + minLatitude + "," + minLongitude + " "
+                        + maxLatitude + "," + maxLongitude + " cell " + cellSize);
+
+                double latitude = randomLatitude(random);
+                double longitude = randomLongitude(random);
+                double radiusKm = random.nextDouble() * 2_000;
+                expected.clear();
+                for (Point point : all) {
+                    if (visible.contains(point.tripId()) && GeoGridIndex.haversineKm(latitude, longitude,
+                            point.latitude(), point.longitude()) <= radiusKm) {
+                        expected.add(point.id());
+                    }
+                }
+                assertEquals(expected, ids(nearby(grid.near(latitude, longitude, radiusKm, memberId, point -> true))),
+                        "circle " + latitude + "," + longitude + " " + radiusKm + " km cell " + cellSize);
+            }
+        }
+    }
+
+    @Test
+    void nearestReturnsTheClosestFirst() {
+        Point a = point(1, 0, 0.1);
+        Point b = point(1, 0, 0.2);
+        Point c = point(1, 0, 0.3);
+        index.put(entry(1, Set.of(ALICE), c, a, b));
+
+        List<Nearby> page = GeoGridIndex.nearest(index.near(0, 0, 100, ALICE, point -> true), 2);
+
+        assertEquals(List.of(a, b), nearby(page));
+    }
+
+    // Edges and poles come up often enough to matter
+    private static double randomLatitude(Random random) {
+        int pick = random.nextInt(10);
+        return pick == 0 ? 90 : pick == 1 ? -90 : pick == 2 ? 89.9 : -90 + random.nextDouble() * 180;
+    }
+
+    private static double randomLongitude(Random random) {
+        int pick = random.nextInt(10);
+        return pick == 0 ? 180 : pick == 1 ? -180 : pick == 2 ? 179.9 : -180 + random.nextDouble() * 360;
+    }
+
+    private Point point(long tripId, double latitude, double longitude) {
+        long id = nextId++;
+        return new Point(Kind.DESTINATION, id, tripId, null, "Place " + id, null, latitude, longitude);
+    }
+
+    private static Entry entry(long tripId, Set<Long> memberIds, Point... points) {
+        return new Entry(tripId, 0, "Trip " + tripId, memberIds, List.of(points));
+    }
+
+    private static List<Point> nearby(List<Nearby> found) {
+        return found.stream().map(Nearby::point).toList();
+    }
+
+    private static Set<Long> ids(Point... points) {
+        return ids(List.of(points));
+    }
+
+    private static Set<Long> ids(Collection<Point> points) {
+        Set<Long> ids = new TreeSet<>();
+        points.forEach(point -> ids.add(point.id()));
+        return ids;
+    }
+}
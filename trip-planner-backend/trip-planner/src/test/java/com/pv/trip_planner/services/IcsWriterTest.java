@@ -0,0 +1,131 @@
+package com.pv.trip_planner.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IcsWriterTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final IcsWriter writer = new IcsWriter(out);
+
+    @Test
+    void shortLinesEndWithCrlf() throws IOException {
+        writer.begin("VEVENT");
+        writer.value("UID", "trip-1-activity-2@trip-planner");
+        writer.end("VEVENT");
+
+        assertEquals("BEGIN:VEVENT\r\nUID:trip-1-activity-2@trip-planner\r\nEND:VEVENT\r\n", written());
+    }
+
+    @Test
+    void longLinesFoldAtSeventyFiveOctets() throws IOException {
+        String value = "x".repeat(200);
+        writer.value("DESCRIPTION", value);
+
+        String[] lines = lines();
+        assertEquals(75, octets(lines[0]));
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(lines[i].startsWith(" "));
+            assertTrue(octets(lines[i]) <= 75, lines[i]);
+        }
+        assertEquals(75, octets(lines[1]));
+        assertEquals("DESCRIPTION:" + value, unfold(written()));
+    }
+
+    @Test
+    void foldingNeverSplitsAMultiByteCharacter() throws IOException {
+        // Two, three and four byte characters, so folds land at every offset within a character
+        for (String character : new String[] {"é", "€", "😀"}) {
+            for (int prefix = 0; prefix < 4; prefix++) {
+                out.reset();
+                String value = "a".repeat(prefix) + character.repeat(60);
+                writer.value("SUMMARY", value);
+
+                byte[] bytes = out.toByteArray();
+                int from = 0;
+                for (int i = 0; i + 1 < bytes.length; i++) {
+                    if (bytes[i] == '\r' && bytes[i + 1] == '\n') {
+                        byte[] line = Arrays.copyOfRange(bytes, from, i);
+                        assertTrue(line.length <= 75, "line of " + line.length + " octets");
+                        assertValidUtf8(line);
+                        from = i + 2;
+                    }
+                }
+                assertEquals(bytes.length, from);
+                assertEquals("SUMMARY:" + value, unfold(written()));
+            }
+        }
+    }
+
+    @Test
+    void textEscapesBackslashSemicolonCommaAndNewlines() throws IOException {
+        writer.text("DESCRIPTION", "a\\b;c,d\ne\r\nf\rg");
+
+        assertEquals("DESCRIPTION:a\\\\b\\;c\\,d\\ne\\nf\\ng\r\n", written());
+    }
+
+    @Test
+    void textDropsControlCharactersButKeepsTabs() {
+        assertEquals("bell\tand null", IcsWriter.escape("bell\u0007\tand\u0000 null\u001b"));
+    }
+
+    @Test
+    void blankTextIsNotWritten() throws IOException {
+        writer.text("LOCATION", null);
+        writer.text("LOCATION", "  ");
+
+        assertEquals("", written());
+    }
+
+    @Test
+    void datesAndTimesUseBasicFormat() throws IOException {
+        writer.date("DTSTART", LocalDate.of(2026, 6, 1));
+        writer.dateTime("DTSTART", LocalDateTime.of(2026, 6, 1, 9, 30, 5));
+        writer.utc("DTSTAMP", Instant.parse("2026-06-01T07:00:00Z"));
+
+        assertEquals("DTSTART;VALUE=DATE:20260601\r\nDTSTART:20260601T093005\r\nDTSTAMP:20260601T070000Z\r\n",
+                written());
+    }
+
+    private String written() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String[] lines() {
+        String content = written();
+        assertTrue(content.endsWith("\r\n"));
+        return content.substring(0, content.length() - 2).split("\r\n", -1);
+    }
+
+    private static int octets(String line) {
+        return line.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static String unfold(String content) {
+        return content.replace("\r\n ", "").replaceAll("\r\n$", "");
+    }
+
+    private static void assertValidUtf8(byte[] line) {
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(line));
+        } catch (CharacterCodingException e) {
+            throw new AssertionError("line splits a character: " + Arrays.toString(line), e);
+        }
+    }
+}
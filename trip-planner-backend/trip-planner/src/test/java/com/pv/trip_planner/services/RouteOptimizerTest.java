@@ -0,0 +1,152 @@
+package com.pv.trip_planner.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteOptimizerTest {
+
+    private static final double EPSILON = 1e-6;
+
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    @Test
+    void noStopsGiveAnEmptyRoute() {
+        RouteOptimizer.Route route = solve(new double[0], new double[0], false, 4);
+
+        assertArrayEquals(new int[0], route.order());
+        assertEquals(0, route.distanceKm());
+        assertTrue(route.complete());
+    }
+
+    @Test
+    void oneStopIsTheWholeRoute() {
+        RouteOptimizer.Route route = solve(new double[] {38.7}, new double[] {-9.1}, false, 4);
+
+        assertArrayEquals(new int[] {0}, route.order());
+        assertEquals(0, route.distanceKm());
+    }
+
+    @Test
+    void twoStopsAreVisitedInTheGivenOrder() {
+        double[] latitudes = {38.7, 41.1};
+        double[] longitudes = {-9.1, -8.6};
+        RouteOptimizer.Route route = solve(latitudes, longitudes, false, 4);
+
+        assertArrayEquals(new int[] {0, 1}, route.order());
+        assertEquals(RouteOptimizer.distanceMatrix(latitudes, longitudes)[1], route.distanceKm(), EPSILON);
+    }
+
+    @Test
+    void collinearStopsAreVisitedEndToEnd() {
+        // Shuffled points on the equator: the shortest open path runs from one end to the other
+        double[] longitudes = {3, 0, 5, 1, 4, 2};
+        double[] latitudes = new double[longitudes.length];
+        RouteOptimizer.Route route = solve(latitudes, longitudes, false, 4);
+
+        assertTrue(route.complete());
+        assertEquals(equatorKm(5), route.distanceKm(), EPSILON);
+        double[] visited = Arrays.stream(route.order()).mapToDouble(stop -> longitudes[stop]).toArray();
+        boolean ascending = visited[0] < visited[visited.length - 1];
+        for (int i = 1; i < visited.length; i++) {
+            assertEquals(ascending, visited[i - 1] < visited[i], "not monotone: " + Arrays.toString(visited));
+        }
+    }
+
+    @Test
+    void fixedStartKeepsStopZeroFirst() {
+        // Stop 0 sits at longitude 2: best is to clear the near end (0) first, then run to 5
+        double[] longitudes = {2, 5, 0, 4, 1, 3};
+        double[] latitudes = new double[longitudes.length];
+        RouteOptimizer.Route route = solve(latitudes, longitudes, true, 4);
+
+        assertEquals(0, route.order()[0]);
+        assertArrayEquals(new int[] {0, 4, 2, 5, 3, 1}, route.order());
+        assertEquals(equatorKm(7), route.distanceKm(), EPSILON);
+    }
+
+    @Test
+    void routeIsNeverLongerThanTheNearestNeighbourPath() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            int size = 3 + random.nextInt(40);
+            double[] latitudes = new double[size];
+            double[] longitudes = new double[size];
+            for (int i = 0; i < size; i++) {
+                latitudes[i] = 38 + random.nextDouble() * 4;
+                longitudes[i] = -9 + random.nextDouble() * 4;
+            }
+            boolean fixedStart = round % 2 == 0;
+            RouteOptimizer optimizer = new RouteOptimizer(latitudes, longitudes, fixedStart);
+            RouteOptimizer.Route route = optimizer.solve(8, deadline(), pool);
+
+            assertPermutation(route.order(), size);
+            assertEquals(optimizer.length(route.order()), route.distanceKm(), EPSILON);
+            assertTrue(route.distanceKm() <= optimizer.length(nearestNeighbour(latitudes, longitudes)) + EPSILON);
+            if (fixedStart) {
+                assertEquals(0, route.order()[0]);
+            }
+        }
+    }
+
+    @Test
+    void expiredDeadlineStillReturnsAValidRoute() {
+        double[] latitudes = {0, 0, 0, 0, 0};
+        double[] longitudes = {4, 0, 3, 1, 2};
+        RouteOptimizer optimizer = new RouteOptimizer(latitudes, longitudes, false);
+        RouteOptimizer.Route route = optimizer.solve(4, System.nanoTime(), pool);
+
+        assertFalse(route.complete());
+        assertPermutation(route.order(), longitudes.length);
+    }
+
+    private RouteOptimizer.Route solve(double[] latitudes, double[] longitudes, boolean fixedStart, int starts) {
+        return new RouteOptimizer(latitudes, longitudes, fixedStart).solve(starts, deadline(), pool);
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    }
+
+    private static double equatorKm(double degrees) {
+        return RouteOptimizer.distanceMatrix(new double[] {0, 0}, new double[] {0, degrees})[1];
+    }
+
+    // The seed search 0 starts from: greedy from stop 0
+    private static int[] nearestNeighbour(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        double[] distances = RouteOptimizer.distanceMatrix(latitudes, longitudes);
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        visited[0] = true;
+        for (int position = 1; position < n; position++) {
+            int nearest = -1;
+            for (int stop = 0; stop < n; stop++) {
+                int from = order[position - 1] * n;
+                if (!visited[stop] && (nearest < 0 || distances[from + stop] < distances[from + nearest])) {
+                    nearest = stop;
+                }
+            }
+            order[position] = nearest;
+            visited[nearest] = true;
+        }
+        return order;
+    }
+
+    private static void assertPermutation(int[] order, int size) {
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < size; i++) {
+            assertEquals(i, sorted[i]);
+        }
+        assertEquals(size, order.length);
+    }
+}
@@ -0,0 +1,250 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.services.ScheduleIndex.DoubleBooking;
+import com.pv.trip_planner.services.ScheduleIndex.Overlap;
+import com.pv.trip_planner.services.ScheduleIndex.Schedule;
+import com.pv.trip_planner.services.ScheduleIndex.Slot;
+import com.pv.trip_planner.services.ScheduleIndex.TripDates;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 6, 1);
+    private static final Long ALICE = 1L;
+    private static final Long BOB = 2L;
+
+    private final ScheduleIndex index = new ScheduleIndex();
+
+    @Test
+    void rangeLookupReachesBackByTheLongestSlot() {
+        Slot allDay = slot(1, 10, DAY, "08:00", "18:00");
+        Slot morning = slot(2, 10, DAY, "09:00", "09:30");
+        index.put(schedule(10, DAY, DAY, Set.of(ALICE), allDay, morning));
+
+        // Starts nine hours before the query and is the only slot still running at 17:00
+        assertEquals(List.of(allDay), others(index.overlapping(slot(99, 10, DAY, "17:00", "17:30"), ALICE)));
+        assertEquals(List.of(allDay, morning), others(index.overlapping(slot(99, 10, DAY, "09:15", "09:20"), ALICE)));
+        assertEquals(List.of(), others(index.overlapping(slot(99, 10, DAY, "18:00", "19:00"), ALICE)));
+    }
+
+    @Test
+    void instantsCountAsOneSecond() {
+        Slot meeting = slot(1, 10, DAY, "09:00", "11:00");
+        Slot call = slot(2, 10, DAY, "13:00", null);
+        index.put(schedule(10, DAY, DAY, Set.of(ALICE), meeting, call));
+
+        assertEquals(List.of(meeting), others(index.overlapping(slot(99, 10, DAY, "10:00", null), ALICE)));
+        assertEquals(List.of(meeting), others(index.overlapping(slot(99, 10, DAY, "09:00", null), ALICE)));
+        // Half-open: an instant at the end of a slot is already past it
+        assertEquals(List.of(), others(index.overlapping(slot(99, 10, DAY, "11:00", null), ALICE)));
+        assertEquals(List.of(call), others(index.overlapping(slot(99, 10, DAY, "13:00", null), ALICE)));
+        assertEquals(List.of(call), others(index.overlapping(slot(99, 10, DAY, "12:00", "13:00:01"), ALICE)));
+        assertEquals(List.of(), others(index.overlapping(slot(99, 10, DAY, "12:00", "13:00"), ALICE)));
+    }
+
+    @Test
+    void activitiesEndingBeforeTheyStartRunPastMidnight() {
+        Slot lateShow = slot(1, 10, DAY, "23:00", "01:00");
+        assertEquals(ScheduleIndex.toDateTime(lateShow.end()), DAY.plusDays(1).atTime(1, 0));
+        index.put(schedule(10, DAY, DAY.plusDays(1), Set.of(ALICE), lateShow));
+
+        assertEquals(List.of(lateShow),
+                others(index.overlapping(slot(99, 10, DAY.plusDays(1), "00:30", "02:00"), ALICE)));
+        assertEquals(List.of(), others(index.overlapping(slot(99, 10, DAY.plusDays(1), "01:00", "02:00"), ALICE)));
+        assertEquals(List.of(), others(index.overlapping(slot(99, 10, DAY, "00:30", "02:00"), ALICE)));
+    }
+
+    @Test
+    void overlappingSkipsTheSlotsOwnActivityAndTripsTheMemberIsNotOn() {
+        Slot own = slot(1, 10, DAY, "09:00", "10:00");
+        Slot shared = slot(2, 20, DAY, "09:30", "10:30");
+        Slot hidden = slot(3, 30, DAY, "09:00", "10:00");
+        index.put(schedule(10, DAY, DAY, Set.of(ALICE), own));
+        index.put(schedule(20, DAY, DAY, Set.of(ALICE, BOB), shared));
+        index.put(schedule(30, DAY, DAY, Set.of(BOB), hidden));
+
+        assertEquals(List.of(shared), others(index.overlapping(own, ALICE)));
+        assertEquals(List.of(hidden), others(index.overlapping(shared, BOB)));
+        assertEquals(List.of(), index.overlapping(own, 3L));
+    }
+
+    @Test
+    void upsertMovesAndRemovesSingleActivities() {
+        Slot walk = slot(1, 10, DAY, "09:00", "10:00");
+        index.put(schedule(10, DAY, DAY, Set.of(ALICE), walk));
+        Slot query = slot(99, 10, DAY, "09:30", "09:45");
+
+        Slot moved = index.slotFor(itemId(DAY), 1L, "walk", LocalTime.of(14, 0), LocalTime.of(15, 0));
+        index.upsert(1L, moved);
+        assertEquals(List.of(), others(index.overlapping(query, ALICE)));
+        assertEquals(List.of(moved), others(index.overlapping(slot(99, 10, DAY, "14:30", null), ALICE)));
+
+        index.upsert(1L, null);
+        assertEquals(List.of(), others(index.overlapping(slot(99, 10, DAY, "14:30", null), ALICE)));
+        assertNull(index.slotFor(12345L, 1L, "walk", LocalTime.NOON, null));
+        assertTrue(index.containsItem(itemId(DAY)));
+    }
+
+    @Test
+    void olderVersionsDoNotReplaceNewerOnes() {
+        index.put(schedule(10, 2, DAY, DAY, Set.of(ALICE), slot(1, 10, DAY, "09:00", "10:00")));
+
+        assertFalse(index.put(schedule(10, 1, DAY, DAY, Set.of(ALICE))));
+        assertEquals(1, index.overlapping(slot(99, 10, DAY, "09:30", null), ALICE).size());
+        assertTrue(index.put(schedule(10, 2, DAY, DAY, Set.of(ALICE))));
+        assertEquals(List.of(), index.overlapping(slot(99, 10, DAY, "09:30", null), ALICE));
+    }
+
+    @Test
+    void overlapsPairsEverySlotWithThoseStillRunning() {
+        Slot tour = slot(1, 10, DAY, "09:00", "12:00");
+        Slot coffee = slot(2, 10, DAY, "10:00", "11:00");
+        Slot lunch = slot(3, 20, DAY, "11:30", "13:00");
+        Slot photo = slot(4, 20, DAY, "11:00", null);
+        Slot hidden = slot(5, 30, DAY, "09:00", "18:00");
+        index.put(schedule(10, DAY, DAY, Set.of(ALICE), tour, coffee));
+        index.put(schedule(20, DAY, DAY, Set.of(ALICE), lunch, photo));
+        index.put(schedule(30, DAY, DAY, Set.of(BOB), hidden));
+
+        List<Overlap> overlaps = index.overlaps(ALICE);
+
+        assertEquals(List.of(List.of(tour, coffee), List.of(tour, photo), List.of(tour, lunch)), pairs(overlaps));
+        assertEquals(LocalTime.of(10, 0), ScheduleIndex.toDateTime(overlaps.get(0).start()).toLocalTime());
+        assertEquals(LocalTime.of(11, 0), ScheduleIndex.toDateTime(overlaps.get(0).end()).toLocalTime());
+    }
+
+    @Test
+    void overlapsMatchesComparingEveryPair() {
+        Random random = new Random(7);
+        List<Slot> all = new ArrayList<>();
+        long activityId = 1;
+        for (long tripId = 1; tripId <= 3; tripId++) {
+            List<Slot> slots = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                LocalDate date = DAY.plusDays(random.nextInt(3));
+                LocalTime start = LocalTime.of(random.nextInt(24), random.nextInt(4) * 15);
+                LocalTime end = random.nextInt(5) == 0 ? null : start.plusMinutes(15 + random.nextInt(8) * 30);
+                slots.add(ScheduleIndex.slot(activityId++, tripId, itemId(date), date, "a", start, end));
+            }
+            index.put(schedule(tripId, 0, DAY, DAY.plusDays(2), Set.of(ALICE), slots.toArray(Slot[]::new)));
+            all.addAll(slots);
+        }
+
+        List<List<Long>> expected = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            for (int j = i + 1; j < all.size(); j++) {
+                Slot a = all.get(i);
+                Slot b = all.get(j);
+                if (a.start() < reach(b) && b.start() < reach(a)) {
+                    expected.add(List.of(Math.min(a.activityId(), b.activityId()),
+                            Math.max(a.activityId(), b.activityId())));
+                }
+            }
+        }
+        List<List<Long>> actual = new ArrayList<>();
+        for (Overlap overlap : index.overlaps(ALICE)) {
+            long a = overlap.slot().activityId();
+            long b = overlap.other().activityId();
+            actual.add(List.of(Math.min(a, b), Math.max(a, b)));
+        }
+        Comparator<List<Long>> byIds = Comparator.<List<Long>>comparingLong(pair -> pair.get(0))
+                .thenComparingLong(pair -> pair.get(1));
+        expected.sort(byIds);
+        actual.sort(byIds);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void tripsSharingOneTravelDayAreNotDoubleBooked() {
+        TripDates lisbon = dates(1, "2026-06-01", "2026-06-05");
+        TripDates porto = dates(2, "2026-06-05", "2026-06-08");
+        index.put(schedule(lisbon, Set.of(ALICE)));
+        index.put(schedule(porto, Set.of(ALICE)));
+
+        assertEquals(List.of(), index.doubleBookings(ALICE));
+
+        TripDates madrid = dates(3, "2026-06-04", "2026-06-10");
+        index.put(schedule(madrid, Set.of(ALICE)));
+
+        assertEquals(List.of(
+                new DoubleBooking(lisbon, madrid, LocalDate.parse("2026-06-04"), LocalDate.parse("2026-06-05")),
+                new DoubleBooking(madrid, porto, LocalDate.parse("2026-06-05"), LocalDate.parse("2026-06-08"))),
+                index.doubleBookings(ALICE));
+    }
+
+    @Test
+    void doubleBookingsTreatMissingEndDatesAsOneDay() {
+        TripDates dayTrip = dates(1, "2026-06-03", null);
+        TripDates week = dates(2, "2026-06-01", "2026-06-07");
+        TripDates undated = new TripDates(3L, "Someday", null, null);
+        TripDates backwards = dates(4, "2026-06-06", "2026-06-02");
+        index.put(schedule(dayTrip, Set.of(ALICE)));
+        index.put(schedule(week, Set.of(ALICE)));
+        index.put(schedule(undated, Set.of(ALICE)));
+        index.put(schedule(backwards, Set.of(BOB)));
+
+        assertEquals(List.of(
+                new DoubleBooking(week, dayTrip, LocalDate.parse("2026-06-03"), LocalDate.parse("2026-06-03"))),
+                index.doubleBookings(ALICE));
+        assertEquals(List.of(), index.doubleBookings(BOB));
+    }
+
+    private static Slot slot(long activityId, long tripId, LocalDate date, String start, String end) {
+        return ScheduleIndex.slot(activityId, tripId, itemId(date), date, "Activity " + activityId,
+                LocalTime.parse(start), end != null ? LocalTime.parse(end) : null);
+    }
+
+    // One itinerary item per day, shared by the trips of a test
+    private static long itemId(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    private static TripDates dates(long tripId, String start, String end) {
+        return new TripDates(tripId, "Trip " + tripId, LocalDate.parse(start), end != null ? LocalDate.parse(end) : null);
+    }
+
+    private static Schedule schedule(TripDates dates, Set<Long> memberIds) {
+        return new Schedule(dates, 0, memberIds, Map.of(), List.of());
+    }
+
+    private static Schedule schedule(long tripId, LocalDate start, LocalDate end, Set<Long> memberIds, Slot... slots) {
+        return schedule(tripId, 0, start, end, memberIds, slots);
+    }
+
+    private static Schedule schedule(long tripId, long version, LocalDate start, LocalDate end, Set<Long> memberIds,
+                                     Slot... slots) {
+        Map<Long, LocalDate> itemDates = new HashMap<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            itemDates.put(itemId(date), date);
+        }
+        return new Schedule(new TripDates(tripId, "Trip " + tripId, start, end), version, memberIds, itemDates,
+                List.of(slots));
+    }
+
+    private static long reach(Slot slot) {
+        return Math.max(slot.end(), slot.start() + 1);
+    }
+
+    private static List<Slot> others(List<Overlap> overlaps) {
+        return overlaps.stream().map(Overlap::other).toList();
+    }
+
+    private static List<List<Slot>> pairs(List<Overlap> overlaps) {
+        return overlaps.stream().map(overlap -> List.of(overlap.slot(), overlap.other())).toList();
+    }
+}
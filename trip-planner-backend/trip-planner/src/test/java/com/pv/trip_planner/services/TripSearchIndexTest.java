@@ -0,0 +1,206 @@
+package com.pv.trip_planner.services;
+
+import com.pv.trip_planner.dto.SearchFacetDto;
+import com.pv.trip_planner.entities.Activity;
+import com.pv.trip_planner.entities.Destination;
+import com.pv.trip_planner.entities.ItineraryItem;
+import com.pv.trip_planner.entities.Trip;
+import com.pv.trip_planner.entities.User;
+import com.pv.trip_planner.services.TripSearchIndex.Document;
+import com.pv.trip_planner.services.TripSearchIndex.Hit;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripSearchIndexTest {
+
+    private static final User ALICE = User.builder().id(1L).build();
+    private static final User BOB = User.builder().id(2L).build();
+    private static final User CAROL = User.builder().id(3L).build();
+
+    private final TripSearchIndex index = new TripSearchIndex();
+
+    @Test
+    void tokenizeLowerCasesRemovesAccentsAndSplitsOnNonWords() {
+        assertEquals(List.of("zurich", "lake", "come", "2026"), TripSearchIndex.tokenize("Zürich, Lake-CÔME  2026!"));
+        assertEquals(List.of(), TripSearchIndex.tokenize(null));
+        assertEquals(List.of(), TripSearchIndex.tokenize(" \t"));
+        assertEquals(List.of(), TripSearchIndex.tokenize("--"));
+    }
+
+    @Test
+    void termsShorterThanTwoCharactersAreNotIndexed() {
+        index.put(Document.of(trip(1, 0, ALICE, "A trip to Oslo")));
+
+        assertEquals(Set.of(), tripIds(search(null, "a")));
+        assertEquals(Set.of(1L), tripIds(search(null, "oslo")));
+    }
+
+    @Test
+    void prefixesMatchLongerWordsAndScoreBelowTheExactWord() {
+        index.put(Document.of(trip(1, 0, ALICE, "Paris weekend")));
+        index.put(Document.of(trip(2, 0, ALICE, "Parisian cafes")));
+        index.put(Document.of(trip(3, 0, ALICE, "Rome")));
+
+        assertEquals(Set.of(1L, 2L), tripIds(search(null, "par")));
+        assertEquals(List.of(1L, 2L), ranked(search(ALICE.getId(), "paris")));
+        assertEquals(List.of(1L, 2L), ranked(search(null, "paris")));
+    }
+
+    @Test
+    void everyQueryTermMustMatch() {
+        index.put(Document.of(trip(1, 0, ALICE, "Paris", activity("Louvre"))));
+        index.put(Document.of(trip(2, 0, ALICE, "Paris", activity("Eiffel tower"))));
+
+        assertEquals(Set.of(1L), tripIds(search(ALICE.getId(), "paris", "louvre")));
+        assertEquals(Set.of(1L), tripIds(search(null, "paris", "louvre")));
+        assertEquals(Set.of(), tripIds(search(null, "louvre", "eiffel")));
+    }
+
+    @Test
+    void strongerFieldsRankFirstThenLaterTripsThenLowerIds() {
+        Trip inDescription = trip(1, 0, ALICE, "Holiday", activity("Museum"));
+        inDescription.getItinerary().get(0).getActivities().get(0).setDescription("Lisbon old town");
+        Trip inTitle = trip(2, 0, ALICE, "Lisbon");
+        Trip inDestination = trip(3, 0, ALICE, "Portugal");
+        inDestination.setDestinations(List.of(destination("Lisbon")));
+        Trip laterTitle = trip(4, 0, ALICE, "Lisbon");
+        laterTitle.setStartDate(LocalDate.of(2026, 9, 1));
+        Trip sameTitle = trip(5, 0, ALICE, "Lisbon");
+        for (Trip trip : List.of(inDescription, inTitle, inDestination, laterTitle, sameTitle)) {
+            index.put(Document.of(trip));
+        }
+
+        List<Hit> hits = search(ALICE.getId(), "lisbon");
+        assertEquals(List.of(4L, 2L, 5L, 3L, 1L), ranked(hits));
+        assertEquals(List.of(4L, 2L), TripSearchIndex.top(hits, 2).stream()
+                .map(hit -> hit.document().tripId()).collect(Collectors.toList()));
+    }
+
+    @Test
+    void membersOnlySeeTheirOwnAndCollaboratedTrips() {
+        index.put(Document.of(trip(1, 0, ALICE, "Oslo")));
+        Trip shared = trip(2, 0, BOB, "Oslo");
+        shared.setCollaborators(Set.of(CAROL));
+        index.put(Document.of(shared));
+
+        assertEquals(Set.of(1L), tripIds(search(ALICE.getId(), "oslo")));
+        assertEquals(Set.of(2L), tripIds(search(BOB.getId(), "oslo")));
+        assertEquals(Set.of(2L), tripIds(search(CAROL.getId(), "oslo")));
+        assertEquals(Set.of(1L, 2L), tripIds(search(null, "oslo")));
+
+        Trip unshared = trip(2, 1, BOB, "Oslo");
+        index.put(Document.of(unshared));
+        assertEquals(Set.of(), tripIds(search(CAROL.getId(), "oslo")));
+        assertEquals(Set.of(2L), tripIds(search(BOB.getId(), "oslo")));
+    }
+
+    @Test
+    void filterIsAppliedToBothSearchPaths() {
+        index.put(Document.of(trip(1, 0, ALICE, "Oslo")));
+        index.put(Document.of(trip(2, 0, ALICE, "Oslo fjords")));
+
+        assertEquals(Set.of(2L), tripIds(index.search(List.of("oslo"), ALICE.getId(),
+                document -> document.title().contains("fjords"))));
+        assertEquals(Set.of(2L), tripIds(index.search(List.of("oslo"), null,
+                document -> document.title().contains("fjords"))));
+    }
+
+    @Test
+    void olderVersionDoesNotReplaceANewerOne() {
+        assertTrue(index.put(Document.of(trip(1, 2, ALICE, "Rome"))));
+
+        assertFalse(index.put(Document.of(trip(1, 1, ALICE, "Paris"))));
+        assertEquals(Set.of(1L), tripIds(search(null, "rome")));
+        assertEquals(Set.of(), tripIds(search(null, "paris")));
+
+        assertTrue(index.put(Document.of(trip(1, 2, ALICE, "Paris"))));
+        assertEquals(Set.of(), tripIds(search(null, "rome")));
+        assertEquals(Set.of(1L), tripIds(search(ALICE.getId(), "paris")));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void removedTripsAreNoLongerFound() {
+        index.put(Document.of(trip(1, 0, ALICE, "Rome")));
+        index.remove(1L);
+        index.remove(2L);
+
+        assertEquals(0, index.size());
+        assertEquals(Set.of(), tripIds(search(null, "rome")));
+        assertEquals(Set.of(), tripIds(search(ALICE.getId(), "rome")));
+    }
+
+    @Test
+    void destinationFacetsCountEachTripOnceIgnoringCase() {
+        Trip first = trip(1, 0, ALICE, "One");
+        first.setDestinations(List.of(destination("Rome"), destination(" rome "), destination("Naples")));
+        Trip second = trip(2, 0, ALICE, "Two");
+        second.setDestinations(List.of(destination("ROME"), destination("Florence")));
+        Trip third = trip(3, 0, ALICE, "Three");
+        third.setDestinations(List.of(destination("Florence"), destination(" ")));
+
+        List<SearchFacetDto> facets = TripSearchService.destinationFacets(hits(first, second, third));
+
+        assertEquals(List.of(new SearchFacetDto("Florence", 2), new SearchFacetDto("Rome", 2),
+                new SearchFacetDto("Naples", 1)), facets);
+    }
+
+    @Test
+    void startMonthFacetsAreInCalendarOrderAndSkipUndatedTrips() {
+        Trip june = trip(1, 0, ALICE, "One");
+        june.setStartDate(LocalDate.of(2026, 6, 30));
+        Trip alsoJune = trip(2, 0, ALICE, "Two");
+        alsoJune.setStartDate(LocalDate.of(2026, 6, 1));
+        Trip december = trip(3, 0, ALICE, "Three");
+        december.setStartDate(LocalDate.of(2025, 12, 24));
+        Trip undated = trip(4, 0, ALICE, "Four");
+        undated.setStartDate(null);
+
+        List<SearchFacetDto> facets = TripSearchService.startMonthFacets(hits(june, alsoJune, december, undated));
+
+        assertEquals(List.of(new SearchFacetDto("2025-12", 1), new SearchFacetDto("2026-06", 2)), facets);
+    }
+
+    private List<Hit> search(Long memberId, String... terms) {
+        return index.search(Arrays.asList(terms), memberId, document -> true);
+    }
+
+    private static Set<Long> tripIds(List<Hit> hits) {
+        return hits.stream().map(hit -> hit.document().tripId()).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static List<Long> ranked(List<Hit> hits) {
+        return TripSearchIndex.top(hits, hits.size()).stream()
+                .map(hit -> hit.document().tripId()).collect(Collectors.toList());
+    }
+
+    private static List<Hit> hits(Trip... trips) {
+        return Arrays.stream(trips).map(trip -> new Hit(Document.of(trip), 1.0)).collect(Collectors.toList());
+    }
+
+    private static Trip trip(long id, long version, User owner, String title, Activity... activities) {
+        ItineraryItem item = ItineraryItem.builder().id(id * 100).title("Day 1")
+                .activities(List.of(activities)).build();
+        return Trip.builder().id(id).version(version).owner(owner).title(title)
+                .startDate(LocalDate.of(2026, 5, 1)).collaborators(Set.of())
+                .itinerary(List.of(item)).destinations(List.of()).build();
+    }
+
+    private static Activity activity(String title) {
+        return Activity.builder().id((long) title.hashCode()).title(title).build();
+    }
+
+    private static Destination destination(String name) {
+        return Destination.builder().id((long) name.hashCode()).name(name).build();
+    }
+}
@@ -266,7 +266,7 @@ const Trip = () => {
                         <Card className="trip-image-card border-0 shadow-sm">
                             <Card.Body className="p-0">
                                 {trip.imageUrl ? (
-                                    <Image src={'http://localhost:9090/api/trips/images/' + trip.imageUrl} fluid className="trip-image" alt={trip.title} />
+                                    <Image src={'http://localhost:9090/api/trips/images/' + trip.imageUrl + '?size=hero'} fluid className="trip-image" alt={trip.title} />
                                 ) : (
                                     <div className="trip-image-placeholder">
                                         <div className="placeholder-content">
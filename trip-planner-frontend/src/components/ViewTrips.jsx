@@ -8,41 +8,55 @@ const ViewTrips = () => {
     const [trips, setTrips] = useState([]);
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState('');
-
-    useEffect(() => {
-        const fetchTrips = async () => {
-            const token = localStorage.getItem('token');
-            if (!token) {
-                setError('No authentication token found');
-                setLoading(false);
-                return;
-            }
-
-            try {
-                const response = await fetch('http://localhost:9090/api/trips/my-trips', {
-                    headers: {
-                        'Authorization': `Bearer ${token}`,
-                        'Content-Type': 'application/json'
-                    }
-                });
-
-                if (!response.ok) {
-                    throw new Error('Failed to fetch trips');
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
+
+    // Fetches one page of trips; the backend returns the next page cursor in X-Next-Cursor
+    const fetchTrips = async (cursor) => {
+        const token = localStorage.getItem('token');
+        if (!token) {
+            setError('No authentication token found');
+            setLoading(false);
+            return;
+        }
+
+        try {
+            // Cards show only the trip's own fields, so no child collections are loaded
+            const url = cursor
+                ? `http://localhost:9090/api/trips/my-trips?include=&cursor=${cursor}`
+                : 'http://localhost:9090/api/trips/my-trips?include=';
+            const response = await fetch(url, {
+                headers: {
+                    'Authorization': `Bearer ${token}`,
+                    'Content-Type': 'application/json'
                 }
+            });
 
-                const data = await response.json();
-                setTrips(data);
-            } catch (error) {
-                console.error('Error fetching trips:', error);
-                setError('Failed to load trips. Please try again.');
-            } finally {
-                setLoading(false);
+            if (!response.ok) {
+                throw new Error('Failed to fetch trips');
             }
-        };
 
+            const data = await response.json();
+            setTrips(prevTrips => cursor ? [...prevTrips, ...data] : data);
+            setNextCursor(response.headers.get('X-Next-Cursor'));
+        } catch (error) {
+            console.error('Error fetching trips:', error);
+            setError('Failed to load trips. Please try again.');
+        } finally {
+            setLoading(false);
+            setLoadingMore(false);
+        }
+    };
+
+    useEffect(() => {
         fetchTrips();
     }, []);
 
+    const loadMoreTrips = () => {
+        setLoadingMore(true);
+        fetchTrips(nextCursor);
+    };
+
     const formatDate = (dateString) => {
         if (!dateString) return 'N/A';
         const date = new Date(dateString);
@@ -205,6 +219,16 @@ const ViewTrips = () => {
                         </Col>
                     ))}
                 </Row>
+
+                {nextCursor && (
+                    <Row>
+                        <Col className="text-center">
+                            <Button variant="outline-primary" onClick={loadMoreTrips} disabled={loadingMore}>
+                                {loadingMore ? 'Loading...' : 'Load more trips'}
+                            </Button>
+                        </Col>
+                    </Row>
+                )}
             </Container>
         </div>
     );